@@ -0,0 +1,56 @@
+package fact.it.eventservice.benchmark;
+
+import fact.it.eventservice.EventServiceApplication;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.service.EventBatchService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the service without a web server against the in-memory H2 profile, so benchmarks measure the
+ * application code and not a Postgres instance that differs per machine. Benchmarks about the database
+ * itself boot against the Postgres from application.properties instead, in a schema of their own.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(EventServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("h2")
+                .logStartupInfo(false)
+                .run(args);
+    }
+
+    static ConfigurableApplicationContext startOnPostgres(String schema, String... args) {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        // public stays on the search path for extensions such as pg_trgm that were installed there.
+        arguments.add("--spring.datasource.url=jdbc:postgresql://${POSTGRES_HOST:localhost}:${POSTGRES_PORT:5432}/postgres"
+                + "?reWriteBatchedInserts=true&currentSchema=" + schema + ",public");
+        arguments.add("--spring.flyway.schemas=" + schema);
+        return new SpringApplicationBuilder(EventServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(arguments.toArray(new String[0]));
+    }
+
+    static void seed(ConfigurableApplicationContext context, int events, int organizers) {
+        context.getBean(EventBatchService.class).ingest(events(events, organizers).iterator());
+    }
+
+    static List<Event> events(int events, int organizers) {
+        List<Event> result = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) {
+            Event event = new Event("BenchmarkEvent" + i, "BenchmarkOrganizer" + (i % organizers));
+            event.setId(i + 1);
+            result.add(event);
+        }
+        return result;
+    }
+}
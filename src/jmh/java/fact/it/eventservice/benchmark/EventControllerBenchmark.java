@@ -0,0 +1,120 @@
+package fact.it.eventservice.benchmark;
+
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.controller.EventController;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventSummary;
+import fact.it.eventservice.repository.EventRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The read paths of EventController against H2. The cached variants measure a warm near-cache,
+ * the uncached ones evict first so every call reaches the repository. findAllNotModified is a
+ * client revalidating an unchanged listing with If-None-Match. findAllEntities loads the managed entities
+ * the listing used before it switched to summaries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventControllerBenchmark {
+
+    private static final int ORGANIZERS = 100;
+
+    @Param({"1000", "10000"})
+    private int events;
+
+    private ConfigurableApplicationContext context;
+    private EventController controller;
+    private EventCache eventCache;
+    private EventRepository eventRepository;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("--events.cache.bus.single-instance=true");
+        controller = context.getBean(EventController.class);
+        eventCache = context.getBean(EventCache.class);
+        eventRepository = context.getBean(EventRepository.class);
+        BenchmarkApplication.seed(context, events, ORGANIZERS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<List<EventSummary>> findAll() {
+        return controller.findAll(null, null, null, null, request());
+    }
+
+    @Benchmark
+    public List<Event> findAllEntities() {
+        return eventRepository.findAll();
+    }
+
+    @Benchmark
+    public ResponseEntity<List<EventSummary>> findAllNotModified() {
+        return controller.findAll(null, null, null, null, request(eventCache.tableETag()));
+    }
+
+    @Benchmark
+    public ResponseEntity<List<EventSummary>> findAllFirstPage() {
+        return controller.findAll(100, null, null, null, request());
+    }
+
+    @Benchmark
+    public ResponseEntity<EventSummary> findByNameCached() {
+        return controller.getEventByEventName("BenchmarkEvent42");
+    }
+
+    @Benchmark
+    public ResponseEntity<EventSummary> findByNameUncached() {
+        eventCache.evictAll();
+        return controller.getEventByEventName("BenchmarkEvent42");
+    }
+
+    @Benchmark
+    public ResponseEntity<List<EventSummary>> findByOrganizerCached() {
+        return controller.getEventsByOrganizer("BenchmarkOrganizer7", null, null, request());
+    }
+
+    @Benchmark
+    public ResponseEntity<List<EventSummary>> findByOrganizerUncached() {
+        eventCache.evictAll();
+        return controller.getEventsByOrganizer("BenchmarkOrganizer7", null, null, request());
+    }
+
+    private static WebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/events"), new MockHttpServletResponse());
+    }
+
+    private static WebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/events");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
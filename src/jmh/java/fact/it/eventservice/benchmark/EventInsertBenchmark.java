@@ -0,0 +1,83 @@
+package fact.it.eventservice.benchmark;
+
+import fact.it.eventservice.model.BatchResult;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.repository.EventRepository;
+import fact.it.eventservice.service.EventBatchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second for one save per event against the chunked batch ingest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventInsertBenchmark {
+
+    private static final int ROWS = 500;
+
+    private ConfigurableApplicationContext context;
+    private EventRepository eventRepository;
+    private EventBatchService eventBatchService;
+    private long invocation;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        eventRepository = context.getBean(EventRepository.class);
+        eventBatchService = context.getBean(EventBatchService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTable() {
+        eventRepository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void singleInserts() {
+        for (Event event : nextEvents()) {
+            eventRepository.save(event);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BatchResult batchedInserts() {
+        return eventBatchService.ingest(nextEvents().iterator());
+    }
+
+    private List<Event> nextEvents() {
+        long prefix = invocation++;
+        List<Event> events = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            events.add(new Event("InsertEvent" + prefix + "-" + i, "InsertOrganizer" + (i % 10)));
+        }
+        return events;
+    }
+}
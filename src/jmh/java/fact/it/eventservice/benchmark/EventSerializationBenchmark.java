@@ -0,0 +1,68 @@
+package fact.it.eventservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a listing into the JSON body, with the same ObjectMapper configuration Spring Boot uses.
+ * serializeListing is the summaries the endpoints return now, serializeEntityListing the reflective
+ * serialization of entities they used to return. Add -prof gc to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int events;
+
+    private List<EventSummary> listing;
+    private List<Event> entityListing;
+    private ObjectWriter writer;
+    private ObjectWriter entityWriter;
+
+    @Setup
+    public void setUp() {
+        entityListing = BenchmarkApplication.events(events, 100);
+        listing = new ArrayList<>(events);
+        for (Event event : entityListing) {
+            listing.add(new EventSummary(event.getId(), event.getEventName(), event.getOrganizer(), event.getVersion()));
+        }
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(TypeFactory.defaultInstance().constructCollectionType(List.class, EventSummary.class));
+        entityWriter = objectMapper.writerFor(TypeFactory.defaultInstance().constructCollectionType(List.class, Event.class));
+    }
+
+    @Benchmark
+    public byte[] serializeListing() throws JsonProcessingException {
+        return writer.writeValueAsBytes(listing);
+    }
+
+    @Benchmark
+    public byte[] serializeEntityListing() throws JsonProcessingException {
+        return entityWriter.writeValueAsBytes(entityListing);
+    }
+}
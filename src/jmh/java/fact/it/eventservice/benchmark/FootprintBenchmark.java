@@ -0,0 +1,184 @@
+package fact.it.eventservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Footprint of the service under each tuning tier of the image: starts it in a JVM of its own with the options
+ * of src/main/docker/jvm-&lt;tier&gt;.options, the Spring profile of the same name and the memory and processor
+ * limits of the tier, against the in-memory H2 database. The score is the read throughput; the startup time is
+ * printed during setup and the resident set size (current and peak), heap and non-heap memory after the
+ * measurement. Compare the peak RSS with the memory limit of the tier, the pod is killed as soon as it crosses it.
+ * The RSS is read from /proc, so it is only printed on Linux. Run it with -Djmh.args=FootprintBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+@Fork(1)
+public class FootprintBenchmark {
+
+    private static final String MAIN_CLASS = "fact.it.eventservice.EventServiceApplication";
+    // The in-memory database lives on the heap of the service, keep it small next to what the tiers are sized for.
+    private static final int EVENTS = 1000;
+
+    @Param({"small", "medium", "large"})
+    private String tier;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private Process service;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        baseUrl = "http://localhost:" + port;
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("@" + Paths.get("src", "main", "docker", "jvm-" + tier + ".options"));
+        // Outside a container the JVM sizes itself by the whole machine, these stand in for the limits of the pod.
+        command.addAll(limits(tier));
+        // The benchmark's own class path: the application, the h2 profile of the tests and the H2 driver.
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MAIN_CLASS);
+        command.add("--spring.profiles.active=h2," + tier);
+        command.add("--server.port=" + port);
+        // Measures what the tier can serve, not what one client is allowed to ask for.
+        command.add("--events.limits.enabled=false");
+        Path log = Paths.get("target", "footprint-benchmark-" + tier + ".log");
+        Files.createDirectories(log.getParent());
+
+        long launched = System.nanoTime();
+        ProcessBuilder processBuilder = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile());
+        // As in the Dockerfile.
+        processBuilder.environment().put("MALLOC_ARENA_MAX", "2");
+        service = processBuilder.start();
+        HttpRequest firstRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/events?limit=1")).build();
+        while (true) {
+            if (!service.isAlive()) {
+                throw new IllegalStateException("The service exited with " + service.exitValue() + ", see " + log);
+            }
+            try {
+                httpClient.send(firstRequest, HttpResponse.BodyHandlers.discarding());
+                break;
+            } catch (IOException notListeningYet) {
+                Thread.sleep(10);
+            }
+        }
+        System.out.printf("%n%s: started in %d ms%n", tier, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launched));
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        String metrics = get("/actuator/prometheus").body();
+        System.out.printf("%n%s: rss %s, peak rss %s, heap used %d MB of %d MB committed, non-heap %d MB committed%n",
+                tier, status("VmRSS"), status("VmHWM"),
+                megabytes(sum(metrics, "jvm_memory_used_bytes", "heap")),
+                megabytes(sum(metrics, "jvm_memory_committed_bytes", "heap")),
+                megabytes(sum(metrics, "jvm_memory_committed_bytes", "nonheap")));
+        service.destroy();
+        service.waitFor();
+    }
+
+    @Benchmark
+    public int findByName() throws Exception {
+        return get("/events/BenchmarkEvent" + ThreadLocalRandom.current().nextInt(EVENTS)).statusCode();
+    }
+
+    @Benchmark
+    public int findAllFirstPage() throws Exception {
+        return get("/events?limit=100").statusCode();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void seed() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < EVENTS; i++) {
+            body.append(i == 0 ? "" : ",").append("{\"eventName\":\"BenchmarkEvent").append(i)
+                    .append("\",\"organizer\":\"BenchmarkOrganizer").append(i % 100).append("\"}");
+        }
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/events/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.append("]").toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    // The limits of the tiers in the README.
+    private static List<String> limits(String tier) {
+        switch (tier) {
+            case "small":
+                return List.of("-XX:MaxRAM=200m", "-XX:ActiveProcessorCount=1");
+            case "medium":
+                return List.of("-XX:MaxRAM=1g", "-XX:ActiveProcessorCount=1");
+            default:
+                return List.of("-XX:MaxRAM=2g", "-XX:ActiveProcessorCount=2");
+        }
+    }
+
+    private String status(String field) throws IOException {
+        Path status = Paths.get("/proc", Long.toString(service.pid()), "status");
+        if (!Files.isReadable(status)) {
+            return "n/a";
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith(field + ":")) {
+                return Long.parseLong(line.replaceAll("\\D", "")) / 1024 + " MB";
+            }
+        }
+        return "n/a";
+    }
+
+    // Sums a metric over the memory pools it is reported for, e.g. eden, survivor and old gen for the heap.
+    private static double sum(String metrics, String name, String area) {
+        double sum = 0;
+        for (String line : metrics.split("\n")) {
+            if (line.startsWith(name + "{") && line.contains("area=\"" + area + "\"")) {
+                sum += Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+            }
+        }
+        return sum;
+    }
+
+    private static long megabytes(double bytes) {
+        return Math.round(bytes / (1024 * 1024));
+    }
+}
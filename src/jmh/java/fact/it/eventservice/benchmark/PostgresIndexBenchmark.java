@@ -0,0 +1,89 @@
+package fact.it.eventservice.benchmark;
+
+import fact.it.eventservice.model.EventSummary;
+import fact.it.eventservice.repository.EventRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The by-organizer queries on a large table in Postgres, with and without the covering organizer index
+ * from V2__index_event_organizer.sql, as V7__cover_event_schedule_in_organizer_index.sql rebuilt it with the
+ * schedule columns the summaries select. The query plans are printed during setup. Needs the Postgres from
+ * application.properties, which is why the default benchmark run excludes it; run it with
+ * -Djmh.args=PostgresIndexBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostgresIndexBenchmark {
+
+    private static final String SCHEMA = "event_index_benchmark";
+    private static final String INDEX = "event_organizer_id_idx";
+    private static final int EVENTS = 200_000;
+    private static final int ORGANIZERS = 2_000;
+    private static final String ORGANIZER = "BenchmarkOrganizer42";
+    // The columns of EventRepository.SUMMARY.
+    private static final String SUMMARY = "select id, event_name, organizer, version, start_time, end_time, status from event";
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private ConfigurableApplicationContext context;
+    private EventRepository eventRepository;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.startOnPostgres(SCHEMA);
+        eventRepository = context.getBean(EventRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        BenchmarkApplication.seed(context, EVENTS, ORGANIZERS);
+        if (!indexed) {
+            jdbcTemplate.execute("drop index " + INDEX);
+        }
+        // Fresh statistics and visibility map, otherwise the planner guesses and index-only scans still visit the heap.
+        jdbcTemplate.execute("vacuum analyze event");
+
+        explain(jdbcTemplate, SUMMARY + " where organizer = '" + ORGANIZER + "' order by id");
+        explain(jdbcTemplate, SUMMARY + " where organizer = '" + ORGANIZER + "' and id > 0 order by id limit 100");
+    }
+
+    private void explain(JdbcTemplate jdbcTemplate, String query) {
+        System.out.println("\nindexed=" + indexed + ": " + query);
+        jdbcTemplate.queryForList("explain (analyze, buffers) " + query, String.class).forEach(System.out::println);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.getBean(JdbcTemplate.class).execute("drop schema " + SCHEMA + " cascade");
+        context.close();
+    }
+
+    @Benchmark
+    public List<EventSummary> findEventsByOrganizer() {
+        return eventRepository.findSummariesByOrganizer(ORGANIZER);
+    }
+
+    @Benchmark
+    public List<EventSummary> findEventsByOrganizerFirstPage() {
+        return eventRepository.findSummariesByOrganizerAfter(ORGANIZER, 0, PageRequest.of(0, 100));
+    }
+}
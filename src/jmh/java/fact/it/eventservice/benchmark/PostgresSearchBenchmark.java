@@ -0,0 +1,97 @@
+package fact.it.eventservice.benchmark;
+
+import fact.it.eventservice.cache.EventInvalidationBus;
+import fact.it.eventservice.repository.EventRepository;
+import fact.it.eventservice.search.EventSearchHit;
+import fact.it.eventservice.search.EventSearchIndex;
+import fact.it.eventservice.search.InMemoryEventSearchIndex;
+import fact.it.eventservice.search.PostgresEventSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First page of GET /events/search on a million events, through the Postgres indexes of
+ * V4__index_event_search.sql and through the in-memory index built from the same table. The terms cover
+ * a selective substring, a substring of a fifth of the table, an organizer with its near namesakes and a
+ * two-letter prefix of every event; the Postgres plans are printed during setup. Needs the Postgres from
+ * application.properties, run it with -Djmh.args=PostgresSearchBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class PostgresSearchBenchmark {
+
+    private static final String SCHEMA = "event_search_benchmark";
+    private static final int EVENTS = 1_000_000;
+    private static final int ORGANIZERS = 2_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"postgres", "memory"})
+    private String index;
+
+    @Param({"event12345", "jazz", "organizer17", "ev"})
+    private String term;
+
+    private ConfigurableApplicationContext context;
+    private EventSearchIndex searchIndex;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.startOnPostgres(SCHEMA);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // Generated in the database, a million rows through the batch endpoint would dominate the run.
+        jdbcTemplate.update("insert into event (id, event_name, organizer, version)"
+                + " select 1000 + i, 'Event' || i || ' ' || (array['Jazz', 'Rock', 'Tech', 'Food', 'Art'])[1 + i % 5] || ' Night',"
+                + " 'Organizer' || (i % ?), 0 from generate_series(1, ?) i", ORGANIZERS, EVENTS);
+        jdbcTemplate.execute("vacuum analyze event");
+
+        if ("memory".equals(index)) {
+            InMemoryEventSearchIndex inMemoryIndex = new InMemoryEventSearchIndex(context.getBean(EventRepository.class),
+                    context.getBean(PlatformTransactionManager.class), context.getBean(EventInvalidationBus.class));
+            inMemoryIndex.rebuild();
+            searchIndex = inMemoryIndex;
+        } else {
+            searchIndex = new PostgresEventSearchIndex(jdbcTemplate);
+            explain(jdbcTemplate, "(lower(event_name) = '" + term + "' or lower(organizer) = '" + term + "')");
+            String pattern = term.length() < EventSearchIndex.MIN_SUBSTRING_LENGTH ? term + "%" : "%" + term + "%";
+            explain(jdbcTemplate, "(lower(event_name) like '" + pattern + "' or lower(organizer) like '" + pattern + "')"
+                    + " and (lower(event_name) = '" + term + "') is not true and (lower(organizer) = '" + term + "') is not true");
+        }
+    }
+
+    private void explain(JdbcTemplate jdbcTemplate, String condition) {
+        String query = "select id, event_name, organizer, version from event where " + condition + " and id > 0 order by id limit " + PAGE_SIZE;
+        System.out.println("\n" + query);
+        jdbcTemplate.queryForList("explain (analyze, buffers) " + query, String.class).forEach(System.out::println);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.getBean(JdbcTemplate.class).execute("drop schema " + SCHEMA + " cascade");
+        context.close();
+    }
+
+    @Benchmark
+    public List<EventSearchHit> searchFirstPage() {
+        return searchIndex.search(term, EventSearchIndex.EXACT, 0, PAGE_SIZE);
+    }
+}
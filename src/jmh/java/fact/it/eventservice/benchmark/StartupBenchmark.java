@@ -0,0 +1,175 @@
+package fact.it.eventservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.spi.ToolProvider;
+import java.util.stream.Stream;
+
+/**
+ * Time from launching the packaged service until its first request is answered, the way a restarted pod
+ * experiences it. Lays the jar out like the Dockerfile does and compares the fat jar with the plain class
+ * path with and without the AppCDS archive of a training run. Needs the Postgres from
+ * application.properties and a packaged jar, run it with -Djmh.args=StartupBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final Path WORK = Paths.get("target", "startup-benchmark");
+    private static final String MAIN_CLASS = "fact.it.eventservice.EventServiceApplication";
+
+    @Param({"jar", "classpath", "appcds"})
+    private String layout;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private Path fatJar;
+    private Process service;
+    private int port;
+
+    @Setup(Level.Trial)
+    public void layOut() throws Exception {
+        fatJar = packagedJar();
+        deleteRecursively(WORK);
+        Files.createDirectories(WORK);
+        run(command("-Djarmode=layertools", "-jar", fatJar.toString(), "extract", "--destination", WORK.toString()));
+        Path classes = WORK.resolve("application").resolve("BOOT-INF").resolve("classes");
+        int exitCode = ToolProvider.findFirst("jar").orElseThrow(() -> new IllegalStateException("Needs a JDK, no jar tool"))
+                .run(System.out, System.err, "--create", "--file", WORK.resolve("event-service.jar").toString(), "-C", classes.toString(), ".");
+        if (exitCode != 0) {
+            throw new IllegalStateException("jar exited with " + exitCode);
+        }
+        if ("appcds".equals(layout)) {
+            run(classpathCommand("-XX:ArchiveClassesAtExit=" + WORK.resolve("app.jsa"),
+                    "--events.startup.training-run=true", "--server.port=0", "--spring.flyway.enabled=false",
+                    "--spring.jpa.properties.hibernate.temp.use_jdbc_metadata_defaults=false"));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void pickPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        service.destroy();
+        service.waitFor();
+    }
+
+    @Benchmark
+    public int timeToFirstRequest() throws Exception {
+        String serverPort = "--server.port=" + port;
+        switch (layout) {
+            case "jar":
+                service = start(command("-jar", fatJar.toString(), serverPort));
+                break;
+            case "classpath":
+                service = start(classpathCommand(serverPort));
+                break;
+            default:
+                service = start(classpathCommand("-XX:SharedArchiveFile=" + WORK.resolve("app.jsa"), serverPort));
+        }
+        HttpRequest firstRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/events?limit=1")).build();
+        while (service.isAlive()) {
+            try {
+                return httpClient.send(firstRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException notListeningYet) {
+                Thread.sleep(10);
+            }
+        }
+        throw new IllegalStateException("The service exited with " + service.exitValue());
+    }
+
+    private static Path packagedJar() throws IOException {
+        try (Stream<Path> jars = Files.list(Paths.get("target"))) {
+            return jars.filter(jar -> jar.getFileName().toString().matches("event-service-.*\\.jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No packaged jar in target, run mvn package first"));
+        }
+    }
+
+    private static List<String> command(String... arguments) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(List.of(arguments));
+        return command;
+    }
+
+    // Same layout as the Dockerfile: application classes in a jar of their own, dependencies on the plain class path.
+    private static List<String> classpathCommand(String... arguments) {
+        List<String> command = command();
+        String classpath = WORK.resolve("event-service.jar") + File.pathSeparator
+                + WORK.resolve("dependencies").resolve("BOOT-INF").resolve("lib") + File.separator + "*";
+        int firstApplicationArgument = 0;
+        while (firstApplicationArgument < arguments.length && arguments[firstApplicationArgument].startsWith("-XX:")) {
+            command.add(arguments[firstApplicationArgument++]);
+        }
+        command.add("-cp");
+        command.add(classpath);
+        command.add(MAIN_CLASS);
+        command.addAll(List.of(arguments).subList(firstApplicationArgument, arguments.length));
+        return command;
+    }
+
+    private static Process start(List<String> command) throws IOException {
+        return new ProcessBuilder(command).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+    }
+
+    private static void run(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        if (!process.waitFor(5, TimeUnit.MINUTES) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Failed: " + String.join(" ", command));
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
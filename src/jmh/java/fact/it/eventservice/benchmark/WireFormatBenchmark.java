@@ -0,0 +1,105 @@
+package fact.it.eventservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventSummary;
+import fact.it.eventservice.protobuf.EventProtobuf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding a listing into the body the way the endpoints do, and decoding it back the way a client would, for
+ * each wire format. The payload size of every format is printed during setup; compare it together with the
+ * times, Smile and CBOR mostly save on parsing, protobuf on size as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"1000", "100000"})
+    private int events;
+
+    @Param({"json", "smile", "cbor", "protobuf"})
+    private String format;
+
+    private List<EventSummary> listing;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        listing = new ArrayList<>(events);
+        for (Event event : BenchmarkApplication.events(events, 100)) {
+            listing.add(new EventSummary(event.getId(), event.getEventName(), event.getOrganizer(), event.getVersion()));
+        }
+        if (!format.equals("protobuf")) {
+            ObjectMapper objectMapper = mapper(format);
+            TypeFactory types = objectMapper.getTypeFactory();
+            writer = objectMapper.writerFor(types.constructCollectionType(List.class, EventSummary.class));
+            reader = objectMapper.readerFor(types.constructCollectionType(List.class, Event.class));
+        }
+        payload = encode();
+        System.out.printf("%n%s, %d events: %d bytes, %.1f bytes per event%n", format, events, payload.length,
+                (double) payload.length / events);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        if (writer != null) {
+            return writer.writeValueAsBytes(listing);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        EventProtobuf.writeSummaryList(listing, body);
+        return body.toByteArray();
+    }
+
+    @Benchmark
+    public List<Event> decode() throws IOException {
+        if (reader != null) {
+            return reader.readValue(payload);
+        }
+        List<Event> decoded = new ArrayList<>(events);
+        Iterator<Event> iterator = EventProtobuf.readEventList(new ByteArrayInputStream(payload));
+        while (iterator.hasNext()) {
+            decoded.add(iterator.next());
+        }
+        return decoded;
+    }
+
+    private static ObjectMapper mapper(String format) {
+        switch (format) {
+            case "smile":
+                return Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.cbor().build();
+            default:
+                return Jackson2ObjectMapperBuilder.json().build();
+        }
+    }
+}
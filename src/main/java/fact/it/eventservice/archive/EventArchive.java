@@ -0,0 +1,231 @@
+package fact.it.eventservice.archive;
+
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.changes.EventChangeRelay;
+import fact.it.eventservice.datasource.BackgroundConnectionBudget;
+import fact.it.eventservice.model.EventChange;
+import fact.it.eventservice.model.EventStatus;
+import fact.it.eventservice.model.EventSummary;
+import org.postgresql.PGStatement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Moves events that ended longer than a retention period ago out of the event table into event_archive,
+ * which is partitioned by month of the start time (V6). The live table and its indexes then only grow with
+ * recent and upcoming events, while range queries can still reach back into the archive.
+ * <p>
+ * A background thread archives once per interval, a batch per transaction. Each batch is a single statement
+ * that deletes the rows, inserts them into the archive and records an ARCHIVED change in the outbox, so a row
+ * is always in exactly one of the two tables. Rows locked by a writer are skipped until the next round, and
+ * replicas archiving at the same time never move a row twice.
+ */
+public class EventArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(EventArchive.class);
+
+    // start_time < cutoff is implied by the end time, but lets the candidates be found through event_start_time_id_idx.
+    private static final String ENDED_BEFORE = "start_time < ? and coalesce(end_time, start_time) < ?";
+    private static final String COLUMNS = "id, event_name, organizer, version, start_time, end_time, status";
+    private static final String MONTHS = "select distinct to_char(start_time at time zone 'UTC', 'YYYY-MM') from event where "
+            + ENDED_BEFORE;
+    private static final String MOVE = "with moved as ("
+            + "delete from event where id in (select id from event where " + ENDED_BEFORE
+            + " order by start_time, id limit ? for update skip locked) returning " + COLUMNS + "),"
+            + " archived as (insert into event_archive (" + COLUMNS + ") select " + COLUMNS + " from moved),"
+            + " recorded as (insert into event_change (type, event_id, event_name, organizer, version)"
+            + " select '" + EventChange.ARCHIVED + "', id, event_name, organizer, version from moved)"
+            + " select event_name, organizer from moved";
+    // The redundant start_time >= ? is what lets the planner skip the partitions before the page.
+    private static final String FIND = "select " + COLUMNS + " from event_archive where start_time >= ? and (start_time, id) > (?, ?)";
+    private static final String PAGE = " order by start_time, id limit ?";
+
+    private static final RowMapper<EventSummary> SUMMARY = (rs, rowNum) -> new EventSummary(rs.getInt(1), rs.getString(2),
+            rs.getString(3), rs.getInt(4), rs.getTimestamp(5).toInstant(), instant(rs.getTimestamp(6)),
+            EventStatus.valueOf(rs.getString(7)));
+    private static final Comparator<EventSummary> BY_START = Comparator.comparing(EventSummary::getStartTime)
+            .thenComparingInt(EventSummary::getId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final EventCache eventCache;
+    private final EventChangeRelay eventChangeRelay;
+    private final BackgroundConnectionBudget connections;
+    private final Duration after;
+    private final Duration interval;
+    private final int batchSize;
+    private final Clock clock;
+    private final Set<YearMonth> partitions = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+    private Thread archiver;
+
+    public EventArchive(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, EventCache eventCache,
+                        EventChangeRelay eventChangeRelay, BackgroundConnectionBudget connections, Duration after,
+                        Duration interval, int batchSize, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.eventCache = eventCache;
+        this.eventChangeRelay = eventChangeRelay;
+        this.connections = connections;
+        this.after = after;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        archiver = new Thread(this::run, "event-archiver");
+        archiver.setDaemon(true);
+        archiver.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        archiver.interrupt();
+        archiver.join(Duration.ofSeconds(10).toMillis());
+    }
+
+    /**
+     * Events starting before this instant may be in the archive, later ones are all still in the event table.
+     */
+    public Instant horizon() {
+        return clock.instant().minus(after);
+    }
+
+    /**
+     * Archives every event that ended before the cutoff and returns how many were moved.
+     */
+    public int archiveEndedBefore(Instant cutoff) {
+        connections.run(() -> createPartitions(cutoff));
+        int archived = 0;
+        int moved;
+        do {
+            // A permit per batch, so requests are not kept from the pool for the whole backlog.
+            moved = connections.run(() -> moveBatch(cutoff));
+            archived += moved;
+        } while (moved == batchSize);
+        return archived;
+    }
+
+    /**
+     * Completes a page of live events starting after (afterStart, afterId) with the archived events of the
+     * same range, when the range reaches back past the horizon. Both lists are in (startTime, id) order.
+     */
+    public List<EventSummary> withArchived(List<EventSummary> live, Instant afterStart, int afterId, Instant to, int limit) {
+        if (!afterStart.isBefore(horizon())) {
+            return live;
+        }
+        List<EventSummary> page = new ArrayList<>(live);
+        page.addAll(find(afterStart, afterId, to, limit));
+        page.sort(BY_START);
+        return page.size() > limit ? page.subList(0, limit) : page;
+    }
+
+    private List<EventSummary> find(Instant afterStart, int afterId, Instant to, int limit) {
+        String sql = FIND + (to == null ? "" : " and start_time < ?") + PAGE;
+        Timestamp start = Timestamp.from(afterStart);
+        // Never prepared on the server: Postgres 10 only prunes partitions when it plans with the actual values.
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.unwrap(PGStatement.class).setPrepareThreshold(0);
+            int parameter = 1;
+            statement.setTimestamp(parameter++, start);
+            statement.setTimestamp(parameter++, start);
+            statement.setInt(parameter++, afterId);
+            if (to != null) {
+                statement.setTimestamp(parameter++, Timestamp.from(to));
+            }
+            statement.setInt(parameter, limit);
+            return statement;
+        }, SUMMARY);
+    }
+
+    // Postgres 10 cannot route a row without a partition for it, so every month that is about to be archived gets
+    // one first, with its own index since the parent cannot have any.
+    private void createPartitions(Instant cutoff) {
+        Timestamp before = Timestamp.from(cutoff);
+        for (String month : jdbcTemplate.queryForList(MONTHS, String.class, before, before)) {
+            YearMonth yearMonth = YearMonth.parse(month);
+            if (partitions.contains(yearMonth)) {
+                continue;
+            }
+            String partition = String.format("event_archive_y%04dm%02d", yearMonth.getYear(), yearMonth.getMonthValue());
+            transaction.executeWithoutResult(status -> {
+                // Serializes replicas creating the same partition, if not exists alone still races in the catalog.
+                jdbcTemplate.execute("select pg_advisory_xact_lock(hashtext('event_archive'))");
+                jdbcTemplate.execute("create table if not exists " + partition + " partition of event_archive for values from ('"
+                        + yearMonth.atDay(1) + " 00:00:00+00') to ('" + yearMonth.plusMonths(1).atDay(1) + " 00:00:00+00')");
+                jdbcTemplate.execute("create index if not exists " + partition + "_start_time_id_idx on " + partition
+                        + " (start_time, id)");
+            });
+            partitions.add(yearMonth);
+        }
+    }
+
+    private int moveBatch(Instant cutoff) {
+        Timestamp before = Timestamp.from(cutoff);
+        List<String[]> moved = transaction.execute(status -> jdbcTemplate.query(MOVE,
+                (rs, rowNum) -> new String[]{rs.getString(1), rs.getString(2)}, before, before, batchSize));
+        if (!moved.isEmpty()) {
+            Set<String> eventNames = new HashSet<>();
+            Set<String> organizers = new HashSet<>();
+            for (String[] event : moved) {
+                eventNames.add(event[0]);
+                organizers.add(event[1]);
+            }
+            eventCache.evict(eventNames, organizers);
+            eventChangeRelay.wakeUp();
+        }
+        return moved.size();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Instant cutoff = horizon();
+                int archived = archiveEndedBefore(cutoff);
+                if (archived > 0) {
+                    log.info("Archived {} events that ended before {}", archived, cutoff);
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Archiving events failed, retrying in {}", interval, e);
+            }
+            try {
+                Thread.sleep(interval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+}
@@ -0,0 +1,33 @@
+package fact.it.eventservice.archive;
+
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.changes.EventChangeRelay;
+import fact.it.eventservice.datasource.BackgroundConnectionBudget;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+
+// Postgres only: the archive is a partitioned table. Without it range queries only see the event table.
+@Configuration
+@ConditionalOnProperty(name = "events.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class EventArchiveConfiguration {
+
+    @Bean
+    public EventArchive eventArchive(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     EventCache eventCache,
+                                     EventChangeRelay eventChangeRelay,
+                                     BackgroundConnectionBudget backgroundConnectionBudget,
+                                     @Value("${events.archive.after:90d}") Duration after,
+                                     @Value("${events.archive.interval:1h}") Duration interval,
+                                     @Value("${events.archive.batch-size:1000}") int batchSize) {
+        return new EventArchive(jdbcTemplate, transactionManager, eventCache, eventChangeRelay, backgroundConnectionBudget,
+                after, interval, batchSize, Clock.systemUTC());
+    }
+}
@@ -0,0 +1,288 @@
+package fact.it.eventservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import fact.it.eventservice.datasource.DataSourceRouting;
+import fact.it.eventservice.model.EventSummary;
+import fact.it.eventservice.repository.EventRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Read-through near-cache in front of the lookups by event name and by organizer. Every write evicts the
+ * keys it touched locally and publishes them on the invalidation bus so the other replicas evict them
+ * too; the TTL only bounds how long a lost invalidation can be served.
+ * <p>
+ * The same evictions advance version counters for the whole table and per organizer, the listing ETags
+ * are made from those instead of hashing response bodies. Counters are per instance, so the tags carry
+ * an epoch that changes with every boot. The epoch alone does not keep other replicas' writes from being
+ * missed: a counter only follows them through the bus, so there are no tags unless the bus reaches every
+ * instance.
+ * <p>
+ * Misses are loaded through a {@link SingleFlight} outside of Caffeine's map, so concurrent misses on one
+ * key cost one query and a slow query never holds up an eviction. A load that overlapped a write is
+ * returned to its callers but not cached.
+ */
+@Component
+public class EventCache implements MeterBinder {
+
+    public static final String BY_NAME = "eventsByName";
+    public static final String BY_ORGANIZER = "eventsByOrganizer";
+
+    private final String origin = UUID.randomUUID().toString();
+    private final EventRepository eventRepository;
+    private final EventInvalidationBus invalidationBus;
+    private final Cache<String, Optional<EventSummary>> byName;
+    private final Cache<String, List<EventSummary>> byOrganizer;
+    private final SingleFlight<String, Optional<EventSummary>> byNameLoads;
+    private final SingleFlight<String, List<EventSummary>> byOrganizerLoads;
+    private final String epoch = origin.substring(0, 8);
+    private final AtomicLong tableVersion = new AtomicLong();
+    private final AtomicLong loadGeneration = new AtomicLong();
+    private final Cache<String, Long> organizerVersions;
+    private volatile long allOrganizersVersion;
+
+    public EventCache(EventRepository eventRepository, EventInvalidationBus invalidationBus,
+                      @Value("${events.cache.by-name.maximum-size:10000}") long byNameMaximumSize,
+                      @Value("${events.cache.by-name.expire-after-write:60s}") Duration byNameExpireAfterWrite,
+                      @Value("${events.cache.by-organizer.maximum-size:1000}") long byOrganizerMaximumSize,
+                      @Value("${events.cache.by-organizer.expire-after-write:30s}") Duration byOrganizerExpireAfterWrite,
+                      @Value("${events.cache.max-in-flight-loads:1000}") int maxInFlightLoads) {
+        this.eventRepository = eventRepository;
+        this.invalidationBus = invalidationBus;
+        this.byName = Caffeine.newBuilder()
+                .maximumSize(byNameMaximumSize)
+                .expireAfterWrite(byNameExpireAfterWrite)
+                .recordStats()
+                .build();
+        this.byOrganizer = Caffeine.newBuilder()
+                .maximumSize(byOrganizerMaximumSize)
+                .expireAfterWrite(byOrganizerExpireAfterWrite)
+                .recordStats()
+                .build();
+        this.byNameLoads = new SingleFlight<>(maxInFlightLoads);
+        this.byOrganizerLoads = new SingleFlight<>(maxInFlightLoads);
+        this.organizerVersions = Caffeine.newBuilder()
+                .maximumSize(Math.max(byOrganizerMaximumSize, 1000))
+                .build();
+        invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    // Misses load from the primary: an entry reloaded from a lagging replica right after an eviction would
+    // be served until it expires.
+    public EventSummary findEventByEventName(String eventName) {
+        return get(byName, byNameLoads, eventName, name -> DataSourceRouting.onPrimary(
+                () -> Optional.ofNullable(eventRepository.findSummaryByEventName(name)))).orElse(null);
+    }
+
+    public List<EventSummary> findEventsByOrganizer(String organizer) {
+        return get(byOrganizer, byOrganizerLoads, organizer, key -> DataSourceRouting.onPrimary(
+                () -> Collections.unmodifiableList(eventRepository.findSummariesByOrganizer(key))));
+    }
+
+    private <V> V get(Cache<String, V> cache, SingleFlight<String, V> loads, String key, Function<String, V> loader) {
+        V cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.load(key, missing -> {
+            long generation = loadGeneration.get();
+            V loaded = loader.apply(missing);
+            cache.put(missing, loaded);
+            // Every eviction moves the generation before dropping a single entry: if it moved while loading,
+            // the value may predate the write and the eviction may have dropped the key before the put.
+            // Checked against the table version instead, a put between an eviction's invalidate and its
+            // version bump would stay cached until it expires.
+            if (loadGeneration.get() != generation) {
+                cache.invalidate(missing);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Tag for the full event table, it changes with every write this instance knows about. Null when the
+     * bus does not reach every instance.
+     */
+    public String tableETag() {
+        if (!invalidationBus.reachesEveryInstance()) {
+            return null;
+        }
+        return eTag(tableVersion.get());
+    }
+
+    /**
+     * Tag for the listing of one organizer, it only changes when that organizer's events may have changed.
+     * Null when the bus does not reach every instance.
+     */
+    public String organizerETag(String organizer) {
+        if (!invalidationBus.reachesEveryInstance()) {
+            return null;
+        }
+        // A counter that was evicted restarts at the table version: never lower than the value it had.
+        long version = organizerVersions.get(organizer, key -> tableVersion.get());
+        return eTag(Math.max(version, allOrganizersVersion));
+    }
+
+    private String eTag(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * Evicts the events of an insert and the organizer listings they were added to.
+     */
+    public void evict(String eventName, String... organizers) {
+        evict(Collections.singletonList(eventName), Arrays.asList(organizers));
+    }
+
+    public void evict(Collection<String> eventNames, Collection<String> organizers) {
+        publish(new EventInvalidation(origin, withoutNulls(eventNames), withoutNulls(organizers)));
+    }
+
+    /**
+     * Evicts an event that was updated or deleted without reading it first. Pass the organizer it moved to,
+     * the listing it moved away from is unknown and is found by name where possible.
+     */
+    public void evictUnread(String eventName, String... organizers) {
+        EventInvalidation invalidation = new EventInvalidation(origin, withoutNulls(Collections.singletonList(eventName)),
+                withoutNulls(Arrays.asList(organizers)));
+        invalidation.setPreviousOrganizerUnknown(true);
+        publish(invalidation);
+    }
+
+    private void publish(EventInvalidation invalidation) {
+        evictLocally(invalidation);
+        invalidationBus.publish(invalidation);
+    }
+
+    public void evictAll() {
+        loadGeneration.incrementAndGet();
+        byNameLoads.forgetAll();
+        byOrganizerLoads.forgetAll();
+        byName.invalidateAll();
+        byOrganizer.invalidateAll();
+        allOrganizersVersion = tableVersion.incrementAndGet();
+    }
+
+    private void onInvalidation(EventInvalidation invalidation) {
+        if (origin.equals(invalidation.getOrigin())) {
+            return;
+        }
+        if (invalidation.isFlushAll()) {
+            evictAll();
+        } else {
+            evictLocally(invalidation);
+        }
+    }
+
+    private void evictLocally(EventInvalidation invalidation) {
+        List<String> eventNames = invalidation.getEventNames();
+        Set<String> organizers = new HashSet<>(invalidation.getOrganizers());
+        loadGeneration.incrementAndGet();
+        for (String eventName : eventNames) {
+            byNameLoads.forget(eventName);
+        }
+        // A listing being loaded may or may not contain the changed events yet.
+        byOrganizerLoads.forgetAll();
+        byName.invalidateAll(eventNames);
+        // Single-statement updates and deletes never read the old row, so the organizer the event used to be
+        // listed under is unknown here and on the other replicas: drop whichever listings still contain it.
+        if (!eventNames.isEmpty()) {
+            Set<String> names = new HashSet<>(eventNames);
+            byOrganizer.asMap().forEach((organizer, events) -> {
+                if (containsAny(events, names)) {
+                    organizers.add(organizer);
+                }
+            });
+        }
+        byOrganizer.invalidateAll(organizers);
+        // Entries go before the versions move: a reader that saw the old tag may get the new data, but a
+        // reader with the new tag never gets the old data from this cache.
+        long version = tableVersion.incrementAndGet();
+        for (String organizer : organizers) {
+            organizerVersions.put(organizer, version);
+        }
+        if (invalidation.isPreviousOrganizerUnknown()) {
+            allOrganizersVersion = version;
+        }
+    }
+
+    private static boolean containsAny(List<EventSummary> events, Set<String> eventNames) {
+        for (EventSummary event : events) {
+            if (eventNames.contains(event.getEventName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> withoutNulls(Collection<String> keys) {
+        List<String> nonNullKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            if (key != null) {
+                nonNullKeys.add(key);
+            }
+        }
+        return nonNullKeys;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byName, BY_NAME);
+        CaffeineCacheMetrics.monitor(registry, byOrganizer, BY_ORGANIZER);
+        bindLoads(registry, byNameLoads, BY_NAME);
+        bindLoads(registry, byOrganizerLoads, BY_ORGANIZER);
+    }
+
+    private static void bindLoads(MeterRegistry registry, SingleFlight<String, ?> loads, String cache) {
+        bindLoadCount(registry, loads, cache, "executed", SingleFlight::executed);
+        bindLoadCount(registry, loads, cache, "collapsed", SingleFlight::collapsed);
+        bindLoadCount(registry, loads, cache, "bypassed", SingleFlight::bypassed);
+        Gauge.builder("events.cache.loads.in-flight", loads, SingleFlight::inFlight)
+                .description("Cache misses currently being loaded")
+                .tag("cache", cache)
+                .register(registry);
+    }
+
+    private static void bindLoadCount(MeterRegistry registry, SingleFlight<String, ?> loads, String cache,
+                                      String outcome, ToDoubleFunction<SingleFlight<String, ?>> count) {
+        FunctionCounter.builder("events.cache.loads", loads, count)
+                .description("Cache miss lookups, by whether they queried, joined a running query or bypassed the in-flight map")
+                .tag("cache", cache)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    public long collapsedLoads() {
+        return byNameLoads.collapsed() + byOrganizerLoads.collapsed();
+    }
+
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put(BY_NAME, byName.stats());
+        stats.put(BY_ORGANIZER, byOrganizer.stats());
+        return stats;
+    }
+}
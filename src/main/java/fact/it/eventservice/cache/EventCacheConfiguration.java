@@ -0,0 +1,32 @@
+package fact.it.eventservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class EventCacheConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "events.cache.bus.type", havingValue = "memory", matchIfMissing = true)
+    public EventInvalidationBus inMemoryEventInvalidationBus(@Value("${events.cache.bus.single-instance:false}") boolean singleInstance) {
+        return new InMemoryEventInvalidationBus(singleInstance);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "events.cache.bus.type", havingValue = "postgres")
+    public EventInvalidationBus postgresEventInvalidationBus(JdbcTemplate jdbcTemplate,
+                                                             DataSourceProperties dataSourceProperties,
+                                                             ObjectMapper objectMapper,
+                                                             @Value("${events.cache.bus.channel:event_invalidation}") String channel,
+                                                             @Value("${events.cache.bus.poll-interval:500ms}") Duration pollInterval,
+                                                             @Value("${events.cache.bus.reconnect-delay:2s}") Duration reconnectDelay) {
+        return new PostgresEventInvalidationBus(jdbcTemplate, dataSourceProperties, objectMapper, channel, pollInterval, reconnectDelay);
+    }
+}
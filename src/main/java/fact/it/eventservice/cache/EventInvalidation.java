@@ -0,0 +1,82 @@
+package fact.it.eventservice.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message sent between replicas when an event changed. The origin lets a replica ignore its own
+ * messages, it already evicted those keys before publishing. previousOrganizerUnknown marks writes
+ * that never read the row, the listing the events were in before may have changed as well.
+ */
+public class EventInvalidation {
+    private String origin;
+    private List<String> eventNames = new ArrayList<>();
+    private List<String> organizers = new ArrayList<>();
+    private boolean previousOrganizerUnknown;
+    private boolean flushAll;
+
+    public EventInvalidation() {
+    }
+
+    public EventInvalidation(String origin, List<String> eventNames, List<String> organizers) {
+        this.origin = origin;
+        this.eventNames = eventNames;
+        this.organizers = organizers;
+    }
+
+    /**
+     * Same message for a subset of the keys, used to split messages that are too large to send at once.
+     */
+    public EventInvalidation part(List<String> eventNames, List<String> organizers) {
+        EventInvalidation part = new EventInvalidation(origin, eventNames, organizers);
+        part.setPreviousOrganizerUnknown(previousOrganizerUnknown);
+        return part;
+    }
+
+    public static EventInvalidation flushAll(String origin) {
+        EventInvalidation invalidation = new EventInvalidation();
+        invalidation.setOrigin(origin);
+        invalidation.setFlushAll(true);
+        return invalidation;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    public List<String> getEventNames() {
+        return eventNames;
+    }
+
+    public void setEventNames(List<String> eventNames) {
+        this.eventNames = eventNames;
+    }
+
+    public List<String> getOrganizers() {
+        return organizers;
+    }
+
+    public void setOrganizers(List<String> organizers) {
+        this.organizers = organizers;
+    }
+
+    public boolean isPreviousOrganizerUnknown() {
+        return previousOrganizerUnknown;
+    }
+
+    public void setPreviousOrganizerUnknown(boolean previousOrganizerUnknown) {
+        this.previousOrganizerUnknown = previousOrganizerUnknown;
+    }
+
+    public boolean isFlushAll() {
+        return flushAll;
+    }
+
+    public void setFlushAll(boolean flushAll) {
+        this.flushAll = flushAll;
+    }
+}
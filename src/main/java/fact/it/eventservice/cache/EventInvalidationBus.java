@@ -0,0 +1,19 @@
+package fact.it.eventservice.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidations to every replica of the service, including the publishing one.
+ */
+public interface EventInvalidationBus {
+
+    void publish(EventInvalidation invalidation);
+
+    void subscribe(Consumer<EventInvalidation> subscriber);
+
+    /**
+     * Whether every running instance of the service receives what is published here. Version counters
+     * advanced from the bus can only be trusted as listing ETags when it does.
+     */
+    boolean reachesEveryInstance();
+}
@@ -0,0 +1,41 @@
+package fact.it.eventservice.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers invalidations synchronously within the JVM. Enough for a single replica, and lets tests
+ * run several caches against one bus as if they were separate pods. Nothing tells it how many pods are
+ * running, so it only claims to reach all of them when it is told there is just this one.
+ */
+public class InMemoryEventInvalidationBus implements EventInvalidationBus {
+
+    private final List<Consumer<EventInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+    private final boolean singleInstance;
+
+    public InMemoryEventInvalidationBus() {
+        this(false);
+    }
+
+    public InMemoryEventInvalidationBus(boolean singleInstance) {
+        this.singleInstance = singleInstance;
+    }
+
+    @Override
+    public void publish(EventInvalidation invalidation) {
+        for (Consumer<EventInvalidation> subscriber : subscribers) {
+            subscriber.accept(invalidation);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<EventInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public boolean reachesEveryInstance() {
+        return singleInstance;
+    }
+}
@@ -0,0 +1,193 @@
+package fact.it.eventservice.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Publishes invalidations with NOTIFY on the Postgres instance the service already uses, and keeps one
+ * dedicated LISTEN connection per replica outside the Hikari pool. Notifications sent while that
+ * connection is down are lost, so every (re)connect flushes the local cache before listening again.
+ */
+public class PostgresEventInvalidationBus implements EventInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresEventInvalidationBus.class);
+    private static final int MAX_PAYLOAD_BYTES = 8000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final Duration pollInterval;
+    private final Duration reconnectDelay;
+    private final List<Consumer<EventInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread listener;
+
+    public PostgresEventInvalidationBus(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties,
+                                        ObjectMapper objectMapper, String channel,
+                                        Duration pollInterval, Duration reconnectDelay) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid notification channel: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        this.pollInterval = pollInterval;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "event-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        closeConnection();
+        listener.join(reconnectDelay.plus(pollInterval).toMillis());
+    }
+
+    @Override
+    public void publish(EventInvalidation invalidation) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(invalidation);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        if (payload.getBytes(StandardCharsets.UTF_8).length < MAX_PAYLOAD_BYTES) {
+            try {
+                jdbcTemplate.query("select pg_notify(?, ?)", (ResultSetExtractor<Void>) resultSet -> null, channel, payload);
+            } catch (DataAccessException e) {
+                // The write has committed, failing the request now would only make clients retry it. The other
+                // replicas miss this one until their entries expire; this one at least drops everything it has.
+                log.warn("Publishing an invalidation on {} failed, flushing the local cache instead", channel, e);
+                deliver(EventInvalidation.flushAll(null));
+            }
+            return;
+        }
+
+        // Split large batches until every message fits in a NOTIFY payload, a single oversized key flushes everything.
+        List<String> eventNames = invalidation.getEventNames();
+        if (eventNames.size() > 1) {
+            int half = eventNames.size() / 2;
+            publish(invalidation.part(eventNames.subList(0, half), invalidation.getOrganizers()));
+            publish(invalidation.part(eventNames.subList(half, eventNames.size()), Collections.emptyList()));
+        } else {
+            publish(EventInvalidation.flushAll(invalidation.getOrigin()));
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<EventInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public boolean reachesEveryInstance() {
+        return true;
+    }
+
+    private void listen() {
+        while (running) {
+            try {
+                connection = connect();
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                deliver(EventInvalidation.flushAll(null));
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollInterval.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Lost the {} listener connection, reconnecting in {}", channel, reconnectDelay, e);
+                    sleep(reconnectDelay);
+                }
+            } finally {
+                closeConnection();
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", dataSourceProperties.determineUsername());
+        properties.setProperty("password", dataSourceProperties.determinePassword());
+        properties.setProperty("ApplicationName", "event-invalidation-listener");
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), properties);
+    }
+
+    private void deliver(String payload) {
+        try {
+            deliver(objectMapper.readValue(payload, EventInvalidation.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed invalidation on {}: {}", channel, payload, e);
+        }
+    }
+
+    private void deliver(EventInvalidation invalidation) {
+        for (Consumer<EventInvalidation> subscriber : subscribers) {
+            try {
+                subscriber.accept(invalidation);
+            } catch (RuntimeException e) {
+                log.warn("Invalidation subscriber failed", e);
+            }
+        }
+    }
+
+    private void closeConnection() {
+        Connection current = connection;
+        connection = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                log.debug("Closing the {} listener connection failed", channel, e);
+            }
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
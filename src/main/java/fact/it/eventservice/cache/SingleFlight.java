@@ -0,0 +1,99 @@
+package fact.it.eventservice.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent loads of the same key into one: the first caller runs the loader on its own thread,
+ * callers that arrive while it runs wait for its result instead of querying again. Failures are shared the
+ * same way, nothing is remembered once the load is done.
+ * <p>
+ * The number of keys in flight is bounded; past the bound callers load on their own without being tracked,
+ * so a burst of distinct keys cannot grow the map. {@link #forget} detaches a running load from its key
+ * after a write, later callers then start a fresh one instead of joining a load that may have read the old row.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final int maxInFlight;
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    public SingleFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public V load(K key, Function<K, V> loader) {
+        CompletableFuture<V> flight = inFlight.get(key);
+        if (flight == null) {
+            if (inFlight.size() >= maxInFlight) {
+                bypassed.increment();
+                return loader.apply(key);
+            }
+            CompletableFuture<V> own = new CompletableFuture<>();
+            flight = inFlight.putIfAbsent(key, own);
+            if (flight == null) {
+                executed.increment();
+                try {
+                    V value = loader.apply(key);
+                    own.complete(value);
+                    return value;
+                } catch (RuntimeException | Error e) {
+                    own.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(key, own);
+                }
+            }
+        }
+        collapsed.increment();
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Loads that ran the loader while tracked.
+     */
+    public long executed() {
+        return executed.sum();
+    }
+
+    /**
+     * Calls that joined a running load instead of running the loader.
+     */
+    public long collapsed() {
+        return collapsed.sum();
+    }
+
+    /**
+     * Calls that ran the loader untracked because the map was full.
+     */
+    public long bypassed() {
+        return bypassed.sum();
+    }
+}
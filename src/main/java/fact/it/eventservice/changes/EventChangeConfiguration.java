@@ -0,0 +1,47 @@
+package fact.it.eventservice.changes;
+
+import fact.it.eventservice.datasource.BackgroundConnectionBudget;
+import fact.it.eventservice.repository.EventChangePositionRepository;
+import fact.it.eventservice.repository.EventChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+@Configuration
+public class EventChangeConfiguration {
+
+    // The only publisher so far; a broker publisher gets a value of its own.
+    @Bean
+    @ConditionalOnProperty(name = "events.changes.publisher", havingValue = "in-process", matchIfMissing = true)
+    public EventChangePublisher inProcessEventChangePublisher(@Value("${events.changes.publisher-buffer-size:10000}") int capacity) {
+        return new InProcessEventChangePublisher(capacity);
+    }
+
+    @Bean
+    public EventChangeRelay eventChangeRelay(EventChangeRepository changeRepository,
+                                             EventChangePositionRepository positionRepository,
+                                             EventChangePublisher publisher,
+                                             PlatformTransactionManager transactionManager,
+                                             BackgroundConnectionBudget backgroundConnectionBudget,
+                                             @Value("${events.changes.relay.batch-size:500}") int batchSize,
+                                             @Value("${events.changes.relay.poll-interval:1s}") Duration pollInterval,
+                                             @Value("${events.changes.retention:7d}") Duration retention) {
+        return new EventChangeRelay(changeRepository, positionRepository, publisher, transactionManager,
+                backgroundConnectionBudget, batchSize, pollInterval, retention);
+    }
+
+    @Bean
+    public EventChangeFeed eventChangeFeed(EventChangeRepository changeRepository,
+                                           EventChangePositionRepository positionRepository,
+                                           EventChangeRelay relay,
+                                           BackgroundConnectionBudget backgroundConnectionBudget,
+                                           @Value("${events.changes.feed.poll-interval:1s}") Duration pollInterval) {
+        EventChangeFeed feed = new EventChangeFeed(changeRepository, positionRepository, backgroundConnectionBudget, pollInterval);
+        relay.onRelayed(feed::signal);
+        return feed;
+    }
+}
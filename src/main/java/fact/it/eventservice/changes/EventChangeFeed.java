@@ -0,0 +1,193 @@
+package fact.it.eventservice.changes;
+
+import fact.it.eventservice.datasource.BackgroundConnectionBudget;
+import fact.it.eventservice.datasource.DataSourceRouting;
+import fact.it.eventservice.model.EventChange;
+import fact.it.eventservice.model.EventChangePosition;
+import fact.it.eventservice.repository.EventChangePositionRepository;
+import fact.it.eventservice.repository.EventChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers GET /events/changes. A consumer that is up to date waits instead of polling: its request is
+ * parked until the relay has numbered new changes, the poll interval finds some relayed by another
+ * replica, or its wait is over. All parked requests are served by one query from the lowest offset
+ * among them, so a burst of writes costs one query however many consumers are waiting.
+ * <p>
+ * Reads go to the primary: the relay that wakes the waiters commits there, a replica may not have the
+ * changes yet.
+ */
+public class EventChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(EventChangeFeed.class);
+
+    private final EventChangeRepository changeRepository;
+    private final EventChangePositionRepository positionRepository;
+    private final BackgroundConnectionBudget connections;
+    private final ScheduledExecutorService scheduler;
+    private final List<Waiter> waiters = new ArrayList<>();
+    private final AtomicBoolean checkPending = new AtomicBoolean();
+    private final AtomicLong relayedRounds = new AtomicLong();
+
+    public EventChangeFeed(EventChangeRepository changeRepository, EventChangePositionRepository positionRepository,
+                           BackgroundConnectionBudget connections, Duration pollInterval) {
+        this.changeRepository = changeRepository;
+        this.positionRepository = positionRepository;
+        this.connections = connections;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "event-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * The changes after offset since, at most limit of them. Completes right away when there are any,
+     * otherwise as soon as there are or with an empty list once maxWait has passed.
+     *
+     * @throws EventChangesPurgedException when changes after since were already purged
+     */
+    public CompletableFuture<List<EventChange>> changesSince(long since, int limit, Duration maxWait) {
+        long roundsSeen = relayedRounds.get();
+        // Read before the changes: a round committed in between must not pass for a purge.
+        long lastOffset = DataSourceRouting.onPrimary(() -> positionRepository.findById(EventChangePosition.ID)
+                .map(EventChangePosition::getLastOffset).orElse(0L));
+        List<EventChange> changes = read(since, limit);
+        if (changes.isEmpty() ? since < lastOffset : changes.get(0).getOffset() != since + 1) {
+            throw new EventChangesPurgedException(since);
+        }
+        if (!changes.isEmpty() || maxWait.isZero() || maxWait.isNegative()) {
+            return CompletableFuture.completedFuture(changes);
+        }
+
+        Waiter waiter = new Waiter(since, limit, System.nanoTime() + maxWait.toNanos());
+        synchronized (waiters) {
+            waiters.add(waiter);
+        }
+        if (relayedRounds.get() != roundsSeen) {
+            signal();
+        }
+        return waiter.result;
+    }
+
+    /**
+     * Re-checks the parked requests on the feed thread; signals that arrive while a check is pending are merged.
+     */
+    public void signal() {
+        relayedRounds.incrementAndGet();
+        if (checkPending.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::check);
+            } catch (RuntimeException rejected) {
+                checkPending.set(false);
+            }
+        }
+    }
+
+    int waiting() {
+        synchronized (waiters) {
+            return waiters.size();
+        }
+    }
+
+    private void check() {
+        checkPending.set(false);
+        List<Waiter> parked;
+        synchronized (waiters) {
+            waiters.removeIf(waiter -> waiter.result.isDone());
+            if (waiters.isEmpty()) {
+                return;
+            }
+            parked = new ArrayList<>(waiters);
+        }
+        try {
+            long since = Long.MAX_VALUE;
+            int limit = 0;
+            for (Waiter waiter : parked) {
+                since = Math.min(since, waiter.since);
+                limit = Math.max(limit, waiter.limit);
+            }
+            List<EventChange> changes = backgroundRead(since, limit);
+            boolean fullPage = changes.size() == limit;
+            long now = System.nanoTime();
+            for (Waiter waiter : parked) {
+                List<EventChange> own = slice(changes, waiter);
+                if (own.isEmpty() && fullPage) {
+                    // The shared page ended before this waiter's offset.
+                    own = backgroundRead(waiter.since, waiter.limit);
+                }
+                if (!own.isEmpty()) {
+                    waiter.result.complete(own);
+                } else if (now - waiter.deadline >= 0) {
+                    waiter.result.complete(Collections.emptyList());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Checking for event changes failed", e);
+            long now = System.nanoTime();
+            for (Waiter waiter : parked) {
+                if (now - waiter.deadline >= 0) {
+                    waiter.result.complete(Collections.emptyList());
+                }
+            }
+        }
+        synchronized (waiters) {
+            waiters.removeIf(waiter -> waiter.result.isDone());
+        }
+    }
+
+    // The check runs on the feed thread, its reads count against the background budget; parked requests hold no connection.
+    private List<EventChange> backgroundRead(long since, int limit) {
+        return connections.run(() -> read(since, limit));
+    }
+
+    private List<EventChange> read(long since, int limit) {
+        return DataSourceRouting.onPrimary(() -> changeRepository.findChangesAfter(since, PageRequest.of(0, limit)));
+    }
+
+    private static List<EventChange> slice(List<EventChange> changes, Waiter waiter) {
+        List<EventChange> own = new ArrayList<>(Math.min(changes.size(), waiter.limit));
+        for (EventChange change : changes) {
+            if (own.size() == waiter.limit) {
+                break;
+            }
+            if (change.getOffset() > waiter.since) {
+                own.add(change);
+            }
+        }
+        return own;
+    }
+
+    private static final class Waiter {
+        private final long since;
+        private final int limit;
+        private final long deadline;
+        private final CompletableFuture<List<EventChange>> result = new CompletableFuture<>();
+
+        private Waiter(long since, int limit, long deadline) {
+            this.since = since;
+            this.limit = limit;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package fact.it.eventservice.changes;
+
+import fact.it.eventservice.model.EventChange;
+
+import java.util.List;
+
+/**
+ * Where the relay hands relayed changes to, today inside the process and later a message broker.
+ */
+public interface EventChangePublisher {
+
+    /**
+     * Publishes a batch in offset order. Blocks while downstream cannot take more: the relay stops reading
+     * the outbox until it returns, so a slow downstream lets changes wait in the table instead of in memory.
+     * Returning means the batch was accepted; a batch whose round fails afterwards is published again.
+     */
+    void publish(List<EventChange> changes) throws InterruptedException;
+}
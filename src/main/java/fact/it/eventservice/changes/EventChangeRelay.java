@@ -0,0 +1,167 @@
+package fact.it.eventservice.changes;
+
+import fact.it.eventservice.datasource.BackgroundConnectionBudget;
+import fact.it.eventservice.model.EventChange;
+import fact.it.eventservice.model.EventChangePosition;
+import fact.it.eventservice.repository.EventChangePositionRepository;
+import fact.it.eventservice.repository.EventChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves changes out of the outbox: numbers the ones without an offset in id order and hands them to the
+ * publisher, a batch per transaction. The position row is locked for the whole round, so with several
+ * replicas only one relays at a time and offsets are never handed out twice. A round that fails rolls
+ * back and the same changes are relayed again, publishing is at least once.
+ * <p>
+ * Full batches are relayed back to back; otherwise the relay sleeps until a writer wakes it up or the poll
+ * interval has passed, which is how it picks up changes committed through another replica. The publisher
+ * blocking is the backpressure: nothing more is read from the outbox until it took the current batch.
+ */
+public class EventChangeRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(EventChangeRelay.class);
+
+    private final EventChangeRepository changeRepository;
+    private final EventChangePositionRepository positionRepository;
+    private final EventChangePublisher publisher;
+    private final TransactionTemplate transaction;
+    private final BackgroundConnectionBudget connections;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration retention;
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread relay;
+    private Instant nextPurge = Instant.MIN;
+
+    public EventChangeRelay(EventChangeRepository changeRepository, EventChangePositionRepository positionRepository,
+                            EventChangePublisher publisher, PlatformTransactionManager transactionManager,
+                            BackgroundConnectionBudget connections, int batchSize, Duration pollInterval, Duration retention) {
+        this.changeRepository = changeRepository;
+        this.positionRepository = positionRepository;
+        this.publisher = publisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.connections = connections;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        relay = new Thread(this::run, "event-change-relay");
+        relay.setDaemon(true);
+        relay.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        relay.interrupt();
+        relay.join(pollInterval.toMillis());
+    }
+
+    /**
+     * Called after a write committed, so its change goes out without waiting for the next poll.
+     */
+    public void wakeUp() {
+        if (wakeUps.availablePermits() == 0) {
+            wakeUps.release();
+        }
+    }
+
+    /**
+     * Runs after every round that relayed something, once its offsets are committed and visible.
+     */
+    public void onRelayed(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Relays one batch and returns how many changes it held.
+     */
+    public int relayBatch() {
+        Integer relayed = connections.run(() -> transaction.execute(status -> {
+            EventChangePosition position = positionRepository.lock(EventChangePosition.ID)
+                    .orElseGet(() -> positionRepository.save(new EventChangePosition(EventChangePosition.ID, 0)));
+            List<EventChange> batch = changeRepository.findUnrelayed(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            long offset = position.getLastOffset();
+            for (EventChange change : batch) {
+                change.setOffset(++offset);
+            }
+            position.setLastOffset(offset);
+            changeRepository.flush();
+            try {
+                publisher.publish(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while publishing event changes", e);
+            }
+            return batch.size();
+        }));
+        if (relayed > 0) {
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        }
+        return relayed;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (relayBatch() < batchSize) {
+                    purge();
+                    wakeUps.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    wakeUps.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Relaying event changes failed, retrying in {}", pollInterval, e);
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Consumers that fall further behind than the retention get 410 Gone and start over from a listing.
+    private void purge() {
+        Instant now = Instant.now();
+        if (now.isBefore(nextPurge)) {
+            return;
+        }
+        nextPurge = now.plus(retention.dividedBy(10));
+        int purged = connections.run(() -> changeRepository.deleteRelayedBefore(now.minus(retention)));
+        if (purged > 0) {
+            log.debug("Purged {} relayed event changes", purged);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package fact.it.eventservice.changes;
+
+/**
+ * Some of the changes after the requested offset have passed the retention and are gone; the consumer has
+ * to start over from a full listing.
+ */
+public class EventChangesPurgedException extends RuntimeException {
+
+    public EventChangesPurgedException(long since) {
+        super("Event changes after offset " + since + " were purged");
+    }
+}
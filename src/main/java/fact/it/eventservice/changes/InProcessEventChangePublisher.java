@@ -0,0 +1,70 @@
+package fact.it.eventservice.changes;
+
+import fact.it.eventservice.model.EventChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers relayed changes to subscribers in this JVM. Changes wait in a bounded buffer until a single
+ * dispatcher thread has handed them to every subscriber; once it is full, publish blocks and with it the
+ * relay. Stands in for a broker in tests and as long as nothing outside the service needs the changes.
+ */
+public class InProcessEventChangePublisher implements EventChangePublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(InProcessEventChangePublisher.class);
+
+    private final BlockingQueue<EventChange> buffer;
+    private final List<Consumer<EventChange>> subscribers = new CopyOnWriteArrayList<>();
+    private final Thread dispatcher;
+
+    public InProcessEventChangePublisher(int capacity) {
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.dispatcher = new Thread(this::dispatch, "event-change-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @Override
+    public void publish(List<EventChange> changes) throws InterruptedException {
+        for (EventChange change : changes) {
+            buffer.put(change);
+        }
+    }
+
+    public void subscribe(Consumer<EventChange> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public int buffered() {
+        return buffer.size();
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                EventChange change = buffer.take();
+                for (Consumer<EventChange> subscriber : subscribers) {
+                    try {
+                        subscriber.accept(change);
+                    } catch (RuntimeException e) {
+                        log.warn("Event change subscriber failed", e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.interrupt();
+    }
+}
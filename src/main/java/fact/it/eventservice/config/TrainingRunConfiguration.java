@@ -0,0 +1,22 @@
+package fact.it.eventservice.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * With events.startup.training-run=true the service stops again as soon as it is ready. The Docker build
+ * starts it that way once, without a database, to record the classes a startup loads into a class data
+ * sharing (AppCDS) archive that later starts reuse.
+ */
+@Configuration
+@ConditionalOnProperty(name = "events.startup.training-run", havingValue = "true")
+public class TrainingRunConfiguration {
+
+    @EventListener
+    public void exitWhenReady(ApplicationReadyEvent event) {
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
@@ -0,0 +1,44 @@
+package fact.it.eventservice.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import fact.it.eventservice.protobuf.EventProtobufHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary wire formats next to JSON, chosen with Accept and Content-Type:
+ * <ul>
+ *     <li>application/x-jackson-smile and application/cbor for every body, with the same Jackson configuration
+ *     (spring.jackson.*) as JSON. They replace the converters Spring MVC would add with a bare ObjectMapper.</li>
+ *     <li>application/x-protobuf for events and listings, see src/main/proto/event.proto.</li>
+ * </ul>
+ * JSON stays the default for clients that accept anything.
+ */
+@Configuration
+public class WireFormatConfiguration implements WebMvcConfigurer {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+
+    // Added last rather than as a bean: Spring Boot puts converter beans of its own kind in front of the
+    // defaults, and then a listing requested with Accept: */* would come back as protobuf.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new EventProtobufHttpMessageConverter());
+    }
+}
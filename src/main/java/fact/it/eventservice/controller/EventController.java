@@ -1,74 +1,417 @@
 package fact.it.eventservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.google.protobuf.InvalidProtocolBufferException;
+import fact.it.eventservice.archive.EventArchive;
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.changes.EventChangeFeed;
+import fact.it.eventservice.changes.EventChangeRelay;
+import fact.it.eventservice.changes.EventChangesPurgedException;
+import fact.it.eventservice.datasource.DataSourceRouting;
+import fact.it.eventservice.model.BatchResult;
 import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventChange;
+import fact.it.eventservice.model.EventSummary;
+import fact.it.eventservice.model.EventSummarySerializer;
+import fact.it.eventservice.protobuf.EventProtobuf;
+import fact.it.eventservice.repository.EventChangeRepository;
 import fact.it.eventservice.repository.EventRepository;
-import org.apache.coyote.Response;
+import fact.it.eventservice.search.EventSearchHit;
+import fact.it.eventservice.search.EventSearchIndex;
+import fact.it.eventservice.service.EventBatchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @RestController
 public class EventController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType(APPLICATION_PROTOBUF_VALUE);
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String NEXT_OFFSET_HEADER = "X-Next-Offset";
+
     @Autowired
     private EventRepository eventRepository;
 
-    @PostConstruct
-    public void fillDB(){
-        if(eventRepository.count()==0){
-            eventRepository.save(new Event("Event1", "Organizer1"));
-            eventRepository.save(new Event("Event2", "Organizer2"));
-            eventRepository.save(new Event("Event3", "Organizer3"));
-            eventRepository.save(new Event("EventTBD", "OrganizerTBD"));
+    @Autowired
+    private EventCache eventCache;
+
+    @Autowired
+    private EventSearchIndex eventSearchIndex;
+
+    @Autowired
+    private EventBatchService eventBatchService;
+
+    @Autowired
+    private EventChangeRepository eventChangeRepository;
+
+    @Autowired
+    private EventChangeRelay eventChangeRelay;
+
+    @Autowired
+    private EventChangeFeed eventChangeFeed;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HttpMessageConverters messageConverters;
+
+    // Absent without Postgres, see EventArchiveConfiguration.
+    @Autowired(required = false)
+    private EventArchive eventArchive;
+
+    @Value("${events.page.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${events.page.max-size:1000}")
+    private int maxPageSize;
+
+    @Value("${events.changes.max-wait:25s}")
+    private Duration maxChangesWait;
+
+    @GetMapping("/events")
+    public ResponseEntity<List<EventSummary>> findAll(@RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Instant from,
+                                               @RequestParam(required = false) Instant to,
+                                               WebRequest request){
+        if(from!=null || to!=null){
+            return revalidated(request, eventCache.tableETag(), () -> range(from, to, limit, cursor));
         }
+        return revalidated(request, eventCache.tableETag(), () -> {
+            if(limit==null && cursor==null){
+                return ResponseEntity.ok(eventRepository.findAllSummaries());
+            }
+            int pageSize = pageSize(limit);
+            List<EventSummary> page = eventRepository.findSummariesAfter(EventCursor.decode(cursor), PageRequest.of(0, pageSize));
+            return page(page, pageSize);
+        });
     }
 
+    @GetMapping(value = "/events", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll(){
+        return ndjson(() -> eventRepository.streamSummaries());
+    }
 
-    @GetMapping("/events")
-    public List<Event> findAll(){
-        return eventRepository.findAll();
+    // Events starting in [from, to), or from onwards without to, always paged in start time order. A range that
+    // reaches back past the archive horizon is completed with the archived events.
+    private ResponseEntity<List<EventSummary>> range(Instant from, Instant to, Integer limit, String cursor){
+        if(from==null){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A range needs from");
+        }
+        if(to!=null && !to.isAfter(from)){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must be after from");
+        }
+        int pageSize = pageSize(limit);
+        EventRangeCursor position = EventRangeCursor.decode(cursor, from);
+        List<EventSummary> page = to==null
+                ? eventRepository.findSummariesStartingAfter(position.getStartTime(), position.getLastId(), PageRequest.of(0, pageSize))
+                : eventRepository.findSummariesStartingAfter(position.getStartTime(), position.getLastId(), to, PageRequest.of(0, pageSize));
+        if(eventArchive!=null){
+            page = eventArchive.withArchived(page, position.getStartTime(), position.getLastId(), to, pageSize);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if(page.size()==pageSize){
+            EventSummary last = page.get(page.size()-1);
+            response.header(NEXT_CURSOR_HEADER, EventRangeCursor.encode(last.getStartTime(), last.getId()));
+        }
+        return response.body(page);
+    }
+
+    // Ranked results page with a cursor of their own: exact matches first, then partial ones, each rank in id order.
+    @GetMapping("/events/search")
+    public ResponseEntity<List<EventSummary>> search(@RequestParam String q,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(required = false) String cursor){
+        if(q.isBlank()){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Empty search term");
+        }
+        int pageSize = pageSize(limit);
+        EventSearchCursor position = EventSearchCursor.decode(cursor);
+        List<EventSearchHit> hits = eventSearchIndex.search(q, position.getRank(), position.getLastId(), pageSize);
+        List<EventSummary> events = new ArrayList<>(hits.size());
+        for (EventSearchHit hit : hits) {
+            events.add(hit.getEvent());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if(hits.size()==pageSize){
+            EventSearchHit last = hits.get(hits.size()-1);
+            response.header(NEXT_CURSOR_HEADER, EventSearchCursor.encode(last.getRank(), last.getEvent().getId()));
+        }
+        return response.body(events);
+    }
+
+    // Changes in offset order; pass X-Next-Offset back as since for the next ones. With wait (seconds) a
+    // consumer that is up to date is answered when something changes instead of polling.
+    @GetMapping("/events/changes")
+    public CompletableFuture<ResponseEntity<List<EventChange>>> changes(@RequestParam(defaultValue = "0") long since,
+                                                                        @RequestParam(required = false) Integer limit,
+                                                                        @RequestParam(defaultValue = "0") int wait){
+        if(since<0 || wait<0){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "since and wait must not be negative");
+        }
+        Duration maxWait = Duration.ofSeconds(wait).compareTo(maxChangesWait) > 0 ? maxChangesWait : Duration.ofSeconds(wait);
+        try {
+            return eventChangeFeed.changesSince(since, pageSize(limit), maxWait).thenApply(changes -> {
+                long next = changes.isEmpty() ? since : changes.get(changes.size()-1).getOffset();
+                return ResponseEntity.ok().header(NEXT_OFFSET_HEADER, Long.toString(next)).body(changes);
+            });
+        } catch (EventChangesPurgedException e) {
+            throw new ResponseStatusException(HttpStatus.GONE, e.getMessage(), e);
+        }
     }
 
     @GetMapping("/events/{eventName}")
-    public Event getEventByEventName(@PathVariable String eventName){
-        return eventRepository.findEventByEventName(eventName);
+    public ResponseEntity<EventSummary> getEventByEventName(@PathVariable String eventName){
+        EventSummary event = eventCache.findEventByEventName(eventName);
+        if(event==null){
+            return ResponseEntity.ok().build();
+        }
+        return ResponseEntity.ok().eTag(EventETag.format(event.getVersion())).body(event);
     }
 
     @GetMapping("/events/organizer/{organizer}")
-    public List<Event> getEventsByOrganizer(@PathVariable String organizer){
-        return eventRepository.findEventsByOrganizer(organizer);
+    public ResponseEntity<List<EventSummary>> getEventsByOrganizer(@PathVariable String organizer,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String cursor,
+                                                            WebRequest request){
+        return revalidated(request, eventCache.organizerETag(organizer), () -> {
+            if(limit==null && cursor==null){
+                return ResponseEntity.ok(eventCache.findEventsByOrganizer(organizer));
+            }
+            int pageSize = pageSize(limit);
+            List<EventSummary> page = eventRepository.findSummariesByOrganizerAfter(organizer, EventCursor.decode(cursor), PageRequest.of(0, pageSize));
+            return page(page, pageSize);
+        });
+    }
+
+    @GetMapping(value = "/events/organizer/{organizer}", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEventsByOrganizer(@PathVariable String organizer){
+        return ndjson(() -> eventRepository.streamSummariesByOrganizer(organizer));
     }
 
     @PostMapping("/events")
     public Event addEvent(@RequestBody Event event){
-        eventRepository.save(event);
+        checkSchedule(event);
+        transaction().executeWithoutResult(status -> {
+            eventRepository.save(event);
+            eventChangeRepository.recordCreated(List.of(event.getEventName()));
+        });
+        eventChangeRelay.wakeUp();
+        eventCache.evict(event.getEventName(), event.getOrganizer());
         return event;
     }
 
+    @PostMapping(value = "/events/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public BatchResult addEvents(InputStream body, @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) throws IOException {
+        // Accepts a JSON array as well as newline-delimited documents, and the same in Smile or CBOR; all are
+        // read lazily, one chunk at a time.
+        try (MappingIterator<Event> events = batchMapper(contentType).readerFor(Event.class).readValues(body)) {
+            return eventBatchService.ingest(events);
+        } catch (JsonProcessingException | RuntimeJsonMappingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed event batch", e);
+        }
+    }
+
+    // An EventList message, read as lazily as the others.
+    @PostMapping(value = "/events/batch", consumes = APPLICATION_PROTOBUF_VALUE)
+    public BatchResult addProtobufEvents(InputStream body){
+        try {
+            return eventBatchService.ingest(EventProtobuf.readEventList(body));
+        } catch (UncheckedIOException e) {
+            if(e.getCause() instanceof InvalidProtocolBufferException){
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed event batch", e);
+            }
+            throw e;
+        }
+    }
+
+    // Updates and deletes are single statements; with If-Match they only apply while the event is still at
+    // that version, so clients never have to read before they write. Each commits together with its outbox
+    // record, which the update reads back from the row it just wrote. The update returns the version it wrote,
+    // which goes back as the event's version and ETag for the next conditional write.
     @PutMapping("/events")
-    public Event updateEvent(@RequestBody Event updatedEvent){
-        Event retrievedEvent = eventRepository.findEventByEventName(updatedEvent.getEventName());
+    public ResponseEntity<Event> updateEvent(@RequestBody Event updatedEvent,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        checkSchedule(updatedEvent);
+        String eventName = updatedEvent.getEventName();
+        Integer expectedVersion = EventETag.parseIfMatch(ifMatch);
+        Integer version = transaction().execute(status -> {
+            Integer written = eventRepository.updateReturningVersion(eventName, updatedEvent.getOrganizer(),
+                    updatedEvent.getStartTime(), updatedEvent.getEndTime(), updatedEvent.getStatus(), expectedVersion);
+            if(written!=null){
+                eventChangeRepository.recordUpdated(eventName);
+            }
+            return written;
+        });
+        if(version==null){
+            return notWritten(eventName, expectedVersion);
+        }
+        eventChangeRelay.wakeUp();
+        eventCache.evictUnread(eventName, updatedEvent.getOrganizer());
+        updatedEvent.setVersion(version);
+        return ResponseEntity.ok().eTag(EventETag.format(version)).body(updatedEvent);
+    }
 
-        retrievedEvent.setEventName(updatedEvent.getEventName());
-        retrievedEvent.setOrganizer(updatedEvent.getOrganizer());
+    @DeleteMapping("/events/event/{eventName}")
+    public ResponseEntity<Event> deleteEvent(@PathVariable String eventName,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Integer expectedVersion = EventETag.parseIfMatch(ifMatch);
+        // The change is recorded first, while the row is still there to copy; a delete that misses rolls it back.
+        int deleted = transaction().execute(status -> {
+            int recorded = expectedVersion==null
+                    ? eventChangeRepository.recordDeleted(eventName)
+                    : eventChangeRepository.recordDeleted(eventName, expectedVersion);
+            if(recorded==0){
+                return 0;
+            }
+            int count = expectedVersion==null
+                    ? eventRepository.deleteByEventName(eventName)
+                    : eventRepository.deleteByEventName(eventName, expectedVersion);
+            if(count==0){
+                status.setRollbackOnly();
+            }
+            return count;
+        });
+        if(deleted==0){
+            return notWritten(eventName, expectedVersion);
+        }
+        eventChangeRelay.wakeUp();
+        eventCache.evictUnread(eventName);
+        return ResponseEntity.ok().build();
+    }
 
-        eventRepository.save(retrievedEvent);
+    private static void checkSchedule(Event event){
+        if(event.endsBeforeItStarts()){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "endTime must not be before startTime");
+        }
+    }
 
-        return retrievedEvent;
+    // Only a failed conditional write costs a second round-trip, to tell a stale version from a missing event.
+    private ResponseEntity<Event> notWritten(String eventName, Integer expectedVersion){
+        if(expectedVersion!=null && eventRepository.existsByEventName(eventName)){
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        return ResponseEntity.notFound().build();
     }
 
-    @DeleteMapping("/events/event/{eventName}")
-    public ResponseEntity deleteEvent(@PathVariable String eventName){
-        Event event = eventRepository.findEventByEventName(eventName);
-        if(event!=null){
-            eventRepository.delete(event);
-            return ResponseEntity.ok().build();
-        }else{
-            return ResponseEntity.notFound().build();
+    // The mapper the message converter for that media type uses, so a batch reads like a single @RequestBody.
+    private ObjectMapper batchMapper(MediaType contentType){
+        for (HttpMessageConverter<?> converter : messageConverters) {
+            if(converter instanceof AbstractJackson2HttpMessageConverter && converter.canRead(Event.class, contentType)){
+                return ((AbstractJackson2HttpMessageConverter) converter).getObjectMapper();
+            }
+        }
+        return objectMapper;
+    }
+
+    private TransactionTemplate transaction(){
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private int pageSize(Integer limit){
+        if(limit==null || limit<1){
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    // Listings are tagged with a version counter that is read before the listing itself, so an unchanged
+    // listing is answered with 304 without loading or serializing a single event. no-cache lets clients
+    // keep the body but makes them revalidate on every poll. The counter follows the primary: a listing a
+    // lagging replica served goes out untagged, or the client would keep getting 304 for it until the next write.
+    // Without a tag (the cache cannot see the writes of other instances) the listing is served as it is.
+    private ResponseEntity<List<EventSummary>> revalidated(WebRequest request, String eTag, Supplier<ResponseEntity<List<EventSummary>>> listing){
+        if(eTag==null){
+            return listing.get();
+        }
+        // Matched by hand: checkNotModified would put the tag on the response even when it is not answered with 304.
+        if(EventETag.matchesIfNoneMatch(eTag, request.getHeaderValues(HttpHeaders.IF_NONE_MATCH))){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+        }
+        ResponseEntity<List<EventSummary>> response;
+        boolean fromReplica;
+        try (DataSourceRouting.ReplicaReads replicaReads = DataSourceRouting.trackReplicaReads()) {
+            response = listing.get();
+            fromReplica = replicaReads.happened();
         }
+        ResponseEntity.BodyBuilder revalidated = ResponseEntity.ok().headers(response.getHeaders()).cacheControl(CacheControl.noCache());
+        if(!fromReplica){
+            revalidated.eTag(eTag);
+        }
+        return revalidated.body(response.getBody());
+    }
+
+    private ResponseEntity<List<EventSummary>> page(List<EventSummary> page, int pageSize){
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if(page.size()==pageSize){
+            response.header(NEXT_CURSOR_HEADER, EventCursor.encode(page.get(page.size()-1).getId()));
+        }
+        return response.body(page);
+    }
+
+    // Writes one JSON document per line while the result set is scrolled. The rows are unmanaged summaries
+    // written straight to the generator, so neither the persistence context nor the serializer keeps per-row state.
+    private ResponseEntity<StreamingResponseBody> ndjson(Supplier<Stream<EventSummary>> query){
+        StreamingResponseBody body = outputStream -> {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.executeWithoutResult(status -> {
+                try (Stream<EventSummary> events = query.get();
+                     JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    generator.setRootValueSeparator(null);
+                    Iterator<EventSummary> iterator = events.iterator();
+                    while (iterator.hasNext()) {
+                        EventSummarySerializer.write(iterator.next(), generator);
+                        generator.writeRaw('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
     }
 
 
@@ -0,0 +1,63 @@
+package fact.it.eventservice.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Strong entity tag for a single event, it is the quoted optimistic-lock version. Clients send it back in
+ * If-Match so updates and deletes can be made conditional without reading the row first.
+ */
+public final class EventETag {
+
+    private static final String ANY = "*";
+    private static final String WEAK = "W/";
+
+    private EventETag() {
+    }
+
+    public static String format(int version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Returns the version an If-Match header asks for, or null when the write is unconditional
+     * (no header or "*"). Tags this service never hands out cannot match anything.
+     */
+    public static Integer parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals(ANY)) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Unknown entity tag");
+        }
+        try {
+            return Integer.parseInt(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Unknown entity tag");
+        }
+    }
+
+    /**
+     * Whether any If-None-Match header matches the tag, by weak comparison as for a GET: a proxy that
+     * compresses the body may have weakened it on the way.
+     */
+    public static boolean matchesIfNoneMatch(String eTag, String[] ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String header : ifNoneMatch) {
+            for (String tag : header.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.equals(ANY) || weak(candidate).equals(weak(eTag))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String weak(String tag) {
+        return tag.startsWith(WEAK) ? tag.substring(WEAK.length()) : tag;
+    }
+}
@@ -0,0 +1,62 @@
+package fact.it.eventservice.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Continuation token for range queries, like {@link EventCursor} but with the start time of the last event
+ * on the previous page next to its id, since those pages are in start time order.
+ */
+public final class EventRangeCursor {
+
+    private static final String PREFIX = "start:";
+
+    private final Instant startTime;
+    private final int lastId;
+
+    private EventRangeCursor(Instant startTime, int lastId) {
+        this.startTime = startTime;
+        this.lastId = lastId;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public static String encode(Instant startTime, int lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (PREFIX + startTime.getEpochSecond() + ":" + startTime.getNano() + ":" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Without a cursor the first page starts at from; a cursor from before from belongs to another range.
+     */
+    public static EventRangeCursor decode(String cursor, Instant from) {
+        if (cursor == null || cursor.isEmpty()) {
+            return new EventRangeCursor(from, 0);
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":");
+            if (!decoded.startsWith(PREFIX) || parts.length != 4) {
+                throw new IllegalArgumentException(decoded);
+            }
+            Instant startTime = Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            if (startTime.isBefore(from)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return new EventRangeCursor(startTime, Integer.parseInt(parts[3]));
+        } catch (IllegalArgumentException | ArithmeticException | DateTimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
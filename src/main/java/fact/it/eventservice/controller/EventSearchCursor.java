@@ -0,0 +1,53 @@
+package fact.it.eventservice.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Continuation token for search results, like {@link EventCursor} but with the rank the previous page
+ * ended in next to the id of its last event.
+ */
+public final class EventSearchCursor {
+
+    private static final String PREFIX = "rank:";
+
+    private final int rank;
+    private final int lastId;
+
+    private EventSearchCursor(int rank, int lastId) {
+        this.rank = rank;
+        this.lastId = lastId;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public static String encode(int rank, int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + rank + ":" + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static EventSearchCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return new EventSearchCursor(0, 0);
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":");
+            if (!decoded.startsWith(PREFIX) || parts.length != 3) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return new EventSearchCursor(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package fact.it.eventservice.datasource;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * The share of the connection pool the background workers (the change relay, the change feed's shared check
+ * and the archiver) may hold at once. They take their connections from the same pool as requests, so without
+ * a cap a relay round blocked on a full publisher next to an archive batch could hold every connection of a
+ * small pool while requests wait for one. The pools of the tiers are sized as the connections for requests
+ * plus this budget (events.datasource.background-connections).
+ */
+public class BackgroundConnectionBudget {
+
+    private final Semaphore permits;
+
+    public BackgroundConnectionBudget(int connections) {
+        this.permits = new Semaphore(connections, true);
+    }
+
+    /**
+     * Runs work that uses at most one connection at a time once a permit is free.
+     */
+    public <T> T run(Supplier<T> work) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a background connection", e);
+        }
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void run(Runnable work) {
+        run(() -> {
+            work.run();
+            return null;
+        });
+    }
+}
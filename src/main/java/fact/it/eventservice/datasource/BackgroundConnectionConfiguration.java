@@ -0,0 +1,14 @@
+package fact.it.eventservice.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BackgroundConnectionConfiguration {
+
+    @Bean
+    public BackgroundConnectionBudget backgroundConnectionBudget(@Value("${events.datasource.background-connections:2}") int connections) {
+        return new BackgroundConnectionBudget(connections);
+    }
+}
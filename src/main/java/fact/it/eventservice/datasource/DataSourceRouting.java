@@ -0,0 +1,81 @@
+package fact.it.eventservice.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Pins the reads of the current thread to the primary. Read-only transactions normally go to a replica,
+ * which can lag behind: reads that must see the latest writes, such as a client's requests right after
+ * its own write or reloading a cache entry that was just evicted, run inside one of these scopes.
+ * Without replicas every read already goes to the primary and the scopes change nothing.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY.get() != null;
+    }
+
+    public static <T> T onPrimary(Supplier<T> reads) {
+        try (Scope ignored = primary()) {
+            return reads.get();
+        }
+    }
+
+    /**
+     * Opens a scope that lasts until it is closed, for code that cannot be wrapped in a Supplier.
+     */
+    public static Scope primary() {
+        boolean nested = isPrimaryRequired();
+        PRIMARY.set(Boolean.TRUE);
+        return () -> {
+            if (!nested) {
+                PRIMARY.remove();
+            }
+        };
+    }
+
+    /**
+     * Opens a scope that tells whether any read inside it was served by a replica, and so may not have seen
+     * the latest writes: what such a read returns must not be tagged with a version taken on the primary.
+     */
+    public static ReplicaReads trackReplicaReads() {
+        Boolean outer = REPLICA_READ.get();
+        REPLICA_READ.set(Boolean.FALSE);
+        return new ReplicaReads() {
+            @Override
+            public boolean happened() {
+                return Boolean.TRUE.equals(REPLICA_READ.get());
+            }
+
+            @Override
+            public void close() {
+                if (outer == null) {
+                    REPLICA_READ.remove();
+                } else {
+                    REPLICA_READ.set(outer || happened());
+                }
+            }
+        };
+    }
+
+    // Called by ReadWriteRoutingDataSource for every connection it takes from a replica.
+    static void replicaRead() {
+        if (REPLICA_READ.get() != null) {
+            REPLICA_READ.set(Boolean.TRUE);
+        }
+    }
+
+    public interface ReplicaReads extends Scope {
+        boolean happened();
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,81 @@
+package fact.it.eventservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read replicas, enabled by listing their JDBC URLs in events.datasource.replica-urls. The replicas use
+ * the credentials of spring.datasource unless events.datasource.replica-username and -password are set.
+ * Each replica gets a pool with the settings of spring.datasource.hikari, which events.datasource.replica-hikari
+ * can override for the replicas alone.
+ * Replaces the auto-configured DataSource with one that routes read-only transactions to the replicas,
+ * everything else (and Flyway) still uses spring.datasource.
+ */
+@Configuration
+@ConditionalOnProperty(name = "events.datasource.replica-urls")
+public class ReadReplicaConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaPool replicaPool(DataSourceProperties dataSourceProperties, Environment environment,
+                                   @Value("${events.datasource.replica-urls}") List<String> replicaUrls,
+                                   @Value("${events.datasource.replica-username:}") String username,
+                                   @Value("${events.datasource.replica-password:}") String password,
+                                   @Value("${events.datasource.replica-connection-timeout:2s}") Duration connectionTimeout,
+                                   @Value("${events.datasource.health-check-interval:5s}") Duration healthCheckInterval) {
+        Binder binder = Binder.get(environment);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username.isEmpty() ? dataSourceProperties.determineUsername() : username)
+                    .password(username.isEmpty() ? dataSourceProperties.determinePassword() : password)
+                    .build();
+            // Reads move here from the primary, so the replicas are sized and tuned like it unless told otherwise.
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            // Fail fast: a replica that cannot give a connection in time is ejected and the read goes to the primary.
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            binder.bind("events.datasource.replica-hikari", Bindable.ofInstance(replica));
+            replica.setPoolName("replica-" + replicas.size());
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaPool(replicas, healthCheckInterval);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(DataSourceProperties dataSourceProperties, ReplicaPool replicaPool,
+                                                                 Environment environment) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        // Bound by hand as the auto-configured pool would be, so the pool size and timeouts of the profile still apply.
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        return new ReadWriteRoutingDataSource(primary, replicaPool);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${events.datasource.sticky-window:5s}") Duration stickyWindow) {
+        return new ReadYourWritesFilter(stickyWindow);
+    }
+}
@@ -0,0 +1,72 @@
+package fact.it.eventservice.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary. The decision is made
+ * when a connection is requested, so it has to sit behind a LazyConnectionDataSourceProxy: the
+ * transaction manager asks for its connection before the transaction is marked read-only, the proxy
+ * only fetches the real one at the first statement.
+ * <p>
+ * A replica that cannot give a connection is ejected and the read moves on to the next one, or to the
+ * primary when none is left: a request never fails because of a replica.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final ReplicaPool replicas;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaPool replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !DataSourceRouting.isPrimaryRequired()) {
+            // Every failure ejects a replica, so this ends once a replica answers or none is left.
+            for (ReplicaPool.Replica replica = replicas.next(); replica != null; replica = replicas.next()) {
+                try {
+                    Connection connection = replica.getDataSource().getConnection();
+                    DataSourceRouting.replicaRead();
+                    return connection;
+                } catch (SQLException e) {
+                    replicas.eject(replica, e);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    // Lets the pool metrics find the primary's Hikari pool through the proxies.
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (primary instanceof AutoCloseable) {
+            ((AutoCloseable) primary).close();
+        }
+    }
+}
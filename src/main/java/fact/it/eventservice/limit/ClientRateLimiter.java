@@ -0,0 +1,34 @@
+package fact.it.eventservice.limit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * One token bucket per client. Buckets of clients that went quiet expire once they would have refilled
+ * anyway, and the number of tracked clients is bounded: an evicted client just starts with a full bucket.
+ */
+public class ClientRateLimiter {
+
+    private final double ratePerSecond;
+    private final double burst;
+    private final Cache<String, TokenBucket> buckets;
+
+    public ClientRateLimiter(double ratePerSecond, double burst, long maximumClients) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterAccess(Duration.ofMillis((long) Math.ceil(1000 * Math.max(1, burst) / ratePerSecond)))
+                .build();
+    }
+
+    /**
+     * Returns 0 when the client may go ahead, otherwise the nanoseconds until it may.
+     */
+    public long tryAcquire(String client) {
+        long now = System.nanoTime();
+        return buckets.get(client, key -> new TokenBucket(ratePerSecond, burst, now)).tryAcquire(now);
+    }
+}
@@ -0,0 +1,63 @@
+package fact.it.eventservice.limit;
+
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The limits of one group of endpoints, picked by method and path pattern. Either limit may be absent.
+ */
+public class EndpointLimit {
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    private final String name;
+    private final Set<String> methods;
+    private final String pathPattern;
+    private final ClientRateLimiter rateLimiter;
+    private final GradientConcurrencyLimit concurrencyLimit;
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    public EndpointLimit(String name, Set<String> methods, String pathPattern,
+                         ClientRateLimiter rateLimiter, GradientConcurrencyLimit concurrencyLimit) {
+        this.name = name;
+        this.methods = methods;
+        this.pathPattern = pathPattern;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public boolean matches(String method, String path) {
+        return methods.contains(method) && PATHS.match(pathPattern, path);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ClientRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public GradientConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    void rateLimited() {
+        rateLimited.increment();
+    }
+
+    void shed() {
+        shed.increment();
+    }
+
+    public long getRateLimited() {
+        return rateLimited.sum();
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+}
@@ -0,0 +1,93 @@
+package fact.it.eventservice.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that finds itself from latency, after the gradient algorithm of Netflix's
+ * concurrency-limits. Two moving averages of the request latency are kept: a short one for now and a
+ * long one for what the service does when it is not overloaded. While the short one stays within
+ * tolerance of the long one the limit grows by about its square root per sample; once requests start to
+ * queue in front of the Hikari pool and Postgres the latency ratio pulls the limit down, to at most half.
+ * <p>
+ * Requests over the limit are rejected right away instead of joining the queue, which is what keeps the
+ * latency of the admitted ones flat under overload.
+ */
+public class GradientConcurrencyLimit {
+
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_ALPHA = 2.0 / (600 + 1);
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+    private boolean sampled;
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a permit of {@link #tryAcquire()} together with how long the request held it.
+     */
+    public void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightBefore);
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightBefore) {
+        if (!sampled) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            sampled = true;
+            return;
+        }
+        shortRtt += (rttNanos - shortRtt) * SHORT_ALPHA;
+        // The long average only learns from a service that is not queueing, or one already held to the minimum
+        // limit; otherwise a long overload would become the new normal and the limit would creep back up.
+        if (shortRtt <= tolerance * longRtt || estimatedLimit <= minLimit) {
+            longRtt += (rttNanos - longRtt) * LONG_ALPHA;
+        }
+        // Once an overload is over the long average is far above the short one; catch up faster than the smoothing would.
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // A limit that is not being used says nothing about the service, and would otherwise grow without bound.
+        if (inFlightBefore < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,87 @@
+package fact.it.eventservice.limit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Limits per group of endpoints, each configured under events.limits.&lt;group&gt;:
+ * <ul>
+ *     <li>rate and burst: requests per second per client and how many may come at once, 0 turns it off.</li>
+ *     <li>max-concurrency, min-concurrency and initial-concurrency: bounds and start of the adaptive
+ *     concurrency limit, a max-concurrency of 0 turns it off.</li>
+ * </ul>
+ * The change feed is only rate limited, a parked long-poll holds no connection.
+ * <p>
+ * The rates only apply with events.limits.per-client=true. Clients are told apart by the address the
+ * request came from, and behind the NodePort Service or a proxy that is the node's or the proxy's address
+ * for everyone: one bucket would then throttle all clients together. Turn it on only where the pods see
+ * the client addresses, or behind a proxy that sets X-Forwarded-For with server.forward-headers-strategy.
+ */
+@Configuration
+@ConditionalOnProperty(name = "events.limits.enabled", havingValue = "true", matchIfMissing = true)
+public class LoadSheddingConfiguration {
+
+    private static final Set<String> READ = Set.of("GET", "HEAD");
+    private static final Set<String> WRITE = Set.of("POST", "PUT", "DELETE");
+
+    @Bean
+    public LoadSheddingFilter loadSheddingFilter(Environment environment,
+                                                 @Value("${events.limits.per-client:false}") boolean perClient,
+                                                 @Value("${events.limits.max-clients:100000}") long maxClients,
+                                                 @Value("${events.limits.latency-tolerance:1.5}") double latencyTolerance,
+                                                 @Value("${events.limits.retry-after:1s}") Duration retryAfter) {
+        Limits limits = new Limits(environment, perClient, maxClients, latencyTolerance);
+        // First match wins.
+        return new LoadSheddingFilter(List.of(
+                limits.endpoint("search", READ, "/events/search"),
+                limits.endpoint("changes", READ, "/events/changes"),
+                limits.endpoint("reads", READ, "/events/**"),
+                limits.endpoint("writes", WRITE, "/events/**")), retryAfter);
+    }
+
+    // Runs before everything but the request metrics, so rejected requests still show up in http.server.requests.
+    @Bean
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilterRegistration(LoadSheddingFilter filter) {
+        FilterRegistrationBean<LoadSheddingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/events", "/events/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    private static final class Limits {
+        private final Environment environment;
+        private final boolean perClient;
+        private final long maxClients;
+        private final double latencyTolerance;
+
+        private Limits(Environment environment, boolean perClient, long maxClients, double latencyTolerance) {
+            this.environment = environment;
+            this.perClient = perClient;
+            this.maxClients = maxClients;
+            this.latencyTolerance = latencyTolerance;
+        }
+
+        private EndpointLimit endpoint(String name, Set<String> methods, String pathPattern) {
+            String prefix = "events.limits." + name + ".";
+            double rate = environment.getProperty(prefix + "rate", Double.class, 0.0);
+            double burst = environment.getProperty(prefix + "burst", Double.class, rate);
+            int maxConcurrency = environment.getProperty(prefix + "max-concurrency", Integer.class, 0);
+            int minConcurrency = environment.getProperty(prefix + "min-concurrency", Integer.class, 1);
+            int initialConcurrency = environment.getProperty(prefix + "initial-concurrency", Integer.class, maxConcurrency);
+            return new EndpointLimit(name, methods, pathPattern,
+                    perClient && rate > 0 ? new ClientRateLimiter(rate, burst, maxClients) : null,
+                    maxConcurrency > 0
+                            ? new GradientConcurrencyLimit(initialConcurrency, minConcurrency, maxConcurrency, latencyTolerance)
+                            : null);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package fact.it.eventservice.limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Turns requests away before they reach a Tomcat thread's wait for a database connection: a client over
+ * its rate gets 429, a request over the endpoint's concurrency limit gets 503, both with Retry-After.
+ * Clients are told apart by remote address, see {@link LoadSheddingConfiguration} for when that can be trusted.
+ * <p>
+ * Streaming responses hold their permit until the response is complete, not just until the handler returned.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final UrlPathHelper PATHS = new UrlPathHelper();
+
+    private final List<EndpointLimit> endpoints;
+    private final Duration shedRetryAfter;
+
+    public LoadSheddingFilter(List<EndpointLimit> endpoints, Duration shedRetryAfter) {
+        this.endpoints = endpoints;
+        this.shedRetryAfter = shedRetryAfter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointLimit endpoint = endpoint(request);
+        if (endpoint == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ClientRateLimiter rateLimiter = endpoint.getRateLimiter();
+        if (rateLimiter != null) {
+            long wait = rateLimiter.tryAcquire(request.getRemoteAddr());
+            if (wait > 0) {
+                endpoint.rateLimited();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, wait);
+                return;
+            }
+        }
+        GradientConcurrencyLimit concurrencyLimit = endpoint.getConcurrencyLimit();
+        if (concurrencyLimit == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            endpoint.shed();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, shedRetryAfter.toNanos());
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                concurrencyLimit.release(System.nanoTime() - start);
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private EndpointLimit endpoint(HttpServletRequest request) {
+        String path = PATHS.getPathWithinApplication(request);
+        for (EndpointLimit endpoint : endpoints) {
+            if (endpoint.matches(request.getMethod(), path)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    // Written directly rather than through sendError: the error page dispatch would cost a rejected request
+    // about as much as serving it, just when the service can least afford it.
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (EndpointLimit endpoint : endpoints) {
+            FunctionCounter.builder("events.limits.rejected", endpoint, EndpointLimit::getRateLimited)
+                    .description("Requests turned away by the limits")
+                    .tag("endpoint", endpoint.getName())
+                    .tag("reason", "rate")
+                    .register(registry);
+            FunctionCounter.builder("events.limits.rejected", endpoint, EndpointLimit::getShed)
+                    .description("Requests turned away by the limits")
+                    .tag("endpoint", endpoint.getName())
+                    .tag("reason", "concurrency")
+                    .register(registry);
+            GradientConcurrencyLimit concurrencyLimit = endpoint.getConcurrencyLimit();
+            if (concurrencyLimit != null) {
+                Gauge.builder("events.limits.concurrency.limit", concurrencyLimit, GradientConcurrencyLimit::getLimit)
+                        .description("Current adaptive concurrency limit")
+                        .tag("endpoint", endpoint.getName())
+                        .register(registry);
+                Gauge.builder("events.limits.concurrency.in-flight", concurrencyLimit, GradientConcurrencyLimit::getInFlight)
+                        .description("Requests holding a concurrency permit")
+                        .tag("endpoint", endpoint.getName())
+                        .register(registry);
+            }
+        }
+    }
+
+    private static final class ReleasingListener implements AsyncListener {
+        private final Runnable release;
+
+        private ReleasingListener(Runnable release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
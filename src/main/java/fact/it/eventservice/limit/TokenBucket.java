@@ -0,0 +1,35 @@
+package fact.it.eventservice.limit;
+
+/**
+ * Classic token bucket: holds up to burst tokens, refills at rate tokens per second and every request
+ * takes one. Refills lazily on access, so an idle bucket costs nothing.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double ratePerSecond, double burst, long now) {
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = ratePerSecond / 1_000_000_000.0;
+        this.tokens = capacity;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes a token if there is one and returns 0, otherwise returns the nanoseconds until there will be.
+     */
+    public synchronized long tryAcquire(long now) {
+        if (now > refilledAt) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+}
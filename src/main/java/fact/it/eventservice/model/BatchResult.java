@@ -0,0 +1,53 @@
+package fact.it.eventservice.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchResult {
+    private int accepted;
+    private List<Failure> failures = new ArrayList<>();
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public int getFailed() {
+        return failures.size();
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public void accepted(int count) {
+        accepted += count;
+    }
+
+    public void failed(int index, String eventName, String reason) {
+        failures.add(new Failure(index, eventName, reason));
+    }
+
+    public static class Failure {
+        private int index;
+        private String eventName;
+        private String reason;
+
+        public Failure(int index, String eventName, String reason) {
+            this.index = index;
+            this.eventName = eventName;
+            this.reason = reason;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getEventName() {
+            return eventName;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
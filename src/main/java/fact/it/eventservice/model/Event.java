@@ -1,17 +1,31 @@
 package fact.it.eventservice.model;
 
 import javax.persistence.*;
+import java.time.Instant;
 
 @Entity
 public class Event {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "event_seq")
+    @SequenceGenerator(name = "event_seq", sequenceName = "event_seq", allocationSize = 50)
     private int id;
     private String organizer;
 
     @Column(unique=true)
     private String eventName;
 
+    // Bumped on every update; exposed to clients as the ETag and checked against If-Match.
+    @Version
+    @Column(columnDefinition = "integer default 0 not null")
+    private int version;
+
+    // Both optional; events without a start time never show up in a range query and are never archived.
+    private Instant startTime;
+    private Instant endTime;
+
+    @Enumerated(EnumType.STRING)
+    @Column(columnDefinition = "varchar(16) default 'SCHEDULED' not null")
+    private EventStatus status = EventStatus.SCHEDULED;
 
     public Event() {
     }
@@ -21,6 +35,12 @@ public class Event {
         setOrganizer(organizer);
     }
 
+    public Event(String eventName, String organizer, Instant startTime, Instant endTime) {
+        this(eventName, organizer);
+        setStartTime(startTime);
+        setEndTime(endTime);
+    }
+
     public int getId() {
         return id;
     }
@@ -44,4 +64,41 @@ public class Event {
     public void setEventName(String eventName) {
         this.eventName = eventName;
     }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Instant startTime) {
+        this.startTime = startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Instant endTime) {
+        this.endTime = endTime;
+    }
+
+    public EventStatus getStatus() {
+        return status;
+    }
+
+    // A body that leaves the status out, or sends null, schedules the event.
+    public void setStatus(EventStatus status) {
+        this.status = status == null ? EventStatus.SCHEDULED : status;
+    }
+
+    public boolean endsBeforeItStarts() {
+        return startTime != null && endTime != null && endTime.isBefore(startTime);
+    }
 }
@@ -0,0 +1,100 @@
+package fact.it.eventservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * One insert, update or delete of an event as recorded in the outbox. Rows are written by the
+ * insert-select statements of EventChangeRepository in the transaction of the change itself, the
+ * offset is set later by the relay and is what consumers of /events/changes page by.
+ */
+@Entity
+public class EventChange {
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+    // Moved to the archive: gone from the live listings, still returned by range queries.
+    public static final String ARCHIVED = "ARCHIVED";
+
+    // Only ever inserted by insert-selects, which leave the id to the database.
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private long id;
+
+    @Column(name = "change_offset", unique = true)
+    private Long offset;
+
+    @Column(nullable = false, length = 16)
+    private String type;
+
+    private Integer eventId;
+    private String eventName;
+    private String organizer;
+    private Integer version;
+
+    // Set by the database: the insert-selects cannot pass an Instant.
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "timestamp default current_timestamp")
+    private Instant changedAt;
+
+    public EventChange() {
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(Long offset) {
+        this.offset = offset;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Integer getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Integer eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public void setEventName(String eventName) {
+        this.eventName = eventName;
+    }
+
+    public String getOrganizer() {
+        return organizer;
+    }
+
+    public void setOrganizer(String organizer) {
+        this.organizer = organizer;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
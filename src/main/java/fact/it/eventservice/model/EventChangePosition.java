@@ -0,0 +1,37 @@
+package fact.it.eventservice.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * The last offset the relay handed out. There is a single row, locked by the relay for the whole of a
+ * round so offsets are assigned and published by one replica at a time.
+ */
+@Entity
+public class EventChangePosition {
+    public static final int ID = 1;
+
+    @Id
+    private int id;
+    private long lastOffset;
+
+    public EventChangePosition() {
+    }
+
+    public EventChangePosition(int id, long lastOffset) {
+        this.id = id;
+        this.lastOffset = lastOffset;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public long getLastOffset() {
+        return lastOffset;
+    }
+
+    public void setLastOffset(long lastOffset) {
+        this.lastOffset = lastOffset;
+    }
+}
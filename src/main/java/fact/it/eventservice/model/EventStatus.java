@@ -0,0 +1,7 @@
+package fact.it.eventservice.model;
+
+public enum EventStatus {
+    SCHEDULED,
+    POSTPONED,
+    CANCELLED
+}
@@ -0,0 +1,64 @@
+package fact.it.eventservice.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.time.Instant;
+
+/**
+ * Read-only view of an event for the GET endpoints. Queries build it with a constructor expression, so
+ * Hibernate never manages it: no dirty-checking snapshot and no persistence-context entry per row. It
+ * is immutable, which also makes it safe to share from the near-cache. Serializes like {@link Event}.
+ */
+@JsonSerialize(using = EventSummarySerializer.class)
+public final class EventSummary {
+    private final int id;
+    private final String organizer;
+    private final String eventName;
+    private final int version;
+    private final Instant startTime;
+    private final Instant endTime;
+    private final EventStatus status;
+
+    public EventSummary(int id, String eventName, String organizer, int version) {
+        this(id, eventName, organizer, version, null, null, EventStatus.SCHEDULED);
+    }
+
+    public EventSummary(int id, String eventName, String organizer, int version,
+                        Instant startTime, Instant endTime, EventStatus status) {
+        this.id = id;
+        this.eventName = eventName;
+        this.organizer = organizer;
+        this.version = version;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.status = status;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getOrganizer() {
+        return organizer;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public EventStatus getStatus() {
+        return status;
+    }
+}
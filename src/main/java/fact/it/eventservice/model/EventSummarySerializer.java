@@ -0,0 +1,65 @@
+package fact.it.eventservice.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Writes the fields straight to the generator with pre-encoded names, instead of the reflective bean
+ * serializer that would look up getters and allocate per property on every event.
+ */
+public class EventSummarySerializer extends StdSerializer<EventSummary> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString ORGANIZER = new SerializedString("organizer");
+    private static final SerializableString EVENT_NAME = new SerializedString("eventName");
+    private static final SerializableString VERSION = new SerializedString("version");
+    private static final SerializableString START_TIME = new SerializedString("startTime");
+    private static final SerializableString END_TIME = new SerializedString("endTime");
+    private static final SerializableString STATUS = new SerializedString("status");
+
+    public EventSummarySerializer() {
+        super(EventSummary.class);
+    }
+
+    @Override
+    public void serialize(EventSummary event, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        write(event, generator);
+    }
+
+    /**
+     * Streaming paths call this directly, without an ObjectWriter or serializer provider per row.
+     */
+    public static void write(EventSummary event, JsonGenerator generator) throws IOException {
+        generator.writeStartObject(event);
+        generator.writeFieldName(ID);
+        generator.writeNumber(event.getId());
+        generator.writeFieldName(ORGANIZER);
+        generator.writeString(event.getOrganizer());
+        generator.writeFieldName(EVENT_NAME);
+        generator.writeString(event.getEventName());
+        generator.writeFieldName(VERSION);
+        generator.writeNumber(event.getVersion());
+        generator.writeFieldName(START_TIME);
+        writeInstant(event.getStartTime(), generator);
+        generator.writeFieldName(END_TIME);
+        writeInstant(event.getEndTime(), generator);
+        generator.writeFieldName(STATUS);
+        generator.writeString(event.getStatus().name());
+        generator.writeEndObject();
+    }
+
+    // ISO-8601 like Spring Boot writes an Instant, with write-dates-as-timestamps off.
+    private static void writeInstant(Instant instant, JsonGenerator generator) throws IOException {
+        if (instant == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(instant.toString());
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package fact.it.eventservice.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventStatus;
+import fact.it.eventservice.model.EventSummary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Encodes and decodes the messages of src/main/proto/event.proto by hand, straight from and into the model
+ * classes. Generated classes would need a protoc build step and a copy of every event into a message object
+ * and back; the format is small enough to write out field by field.
+ */
+public final class EventProtobuf {
+
+    private static final int ID = 1;
+    private static final int EVENT_NAME = 2;
+    private static final int ORGANIZER = 3;
+    private static final int VERSION = 4;
+    private static final int START_TIME = 5;
+    private static final int END_TIME = 6;
+    private static final int STATUS = 7;
+    private static final int EVENTS = 1;
+    private static final int SECONDS = 1;
+    private static final int NANOS = 2;
+    private static final int ID_TAG = tag(ID, WireFormat.WIRETYPE_VARINT);
+    private static final int EVENT_NAME_TAG = tag(EVENT_NAME, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int ORGANIZER_TAG = tag(ORGANIZER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int VERSION_TAG = tag(VERSION, WireFormat.WIRETYPE_VARINT);
+    private static final int START_TIME_TAG = tag(START_TIME, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int END_TIME_TAG = tag(END_TIME, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int STATUS_TAG = tag(STATUS, WireFormat.WIRETYPE_VARINT);
+    private static final int SECONDS_TAG = tag(SECONDS, WireFormat.WIRETYPE_VARINT);
+    private static final int NANOS_TAG = tag(NANOS, WireFormat.WIRETYPE_VARINT);
+    // The numbers of the EventStatus enum in event.proto, 0 is EVENT_STATUS_UNSPECIFIED.
+    private static final int SCHEDULED = 1;
+    private static final int POSTPONED = 2;
+    private static final int CANCELLED = 3;
+    private static final int EVENTS_TAG = tag(EVENTS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+
+    private EventProtobuf() {
+    }
+
+    /**
+     * Writes an {@link Event} as an Event message.
+     */
+    public static void writeEvent(Event event, OutputStream outputStream) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+        writeFields(event, output);
+        output.flush();
+    }
+
+    /**
+     * Writes an {@link EventSummary} as an Event message.
+     */
+    public static void writeEvent(EventSummary summary, OutputStream outputStream) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+        writeFields(summary, output);
+        output.flush();
+    }
+
+    /**
+     * Writes events as an EventList message, one embedded message at a time.
+     */
+    public static void writeEventList(Collection<Event> events, OutputStream outputStream) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+        for (Event event : events) {
+            output.writeTag(EVENTS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(size(event));
+            writeFields(event, output);
+        }
+        output.flush();
+    }
+
+    /**
+     * Writes summaries as an EventList message, one embedded message at a time.
+     */
+    public static void writeSummaryList(Collection<EventSummary> summaries, OutputStream outputStream) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+        for (EventSummary summary : summaries) {
+            output.writeTag(EVENTS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(size(summary));
+            writeFields(summary, output);
+        }
+        output.flush();
+    }
+
+    public static Event readEvent(InputStream inputStream) throws IOException {
+        return readFields(CodedInputStream.newInstance(inputStream));
+    }
+
+    /**
+     * Reads an EventList message lazily, one event per call to next. The message size limit of protobuf
+     * applies to every event on its own, not to the whole list, so batches are not bounded by it.
+     * Malformed input surfaces from the iterator as an UncheckedIOException.
+     */
+    public static Iterator<Event> readEventList(InputStream inputStream) {
+        CodedInputStream input = CodedInputStream.newInstance(inputStream);
+        return new Iterator<>() {
+            private Event next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    try {
+                        next = readNext(input);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    done = next == null;
+                }
+                return next != null;
+            }
+
+            @Override
+            public Event next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Event event = next;
+                next = null;
+                return event;
+            }
+        };
+    }
+
+    private static Event readNext(CodedInputStream input) throws IOException {
+        while (true) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                return null;
+            }
+            if (tag != EVENTS_TAG) {
+                input.skipField(tag);
+                continue;
+            }
+            int limit = input.pushLimit(input.readRawVarint32());
+            Event event = readFields(input);
+            input.popLimit(limit);
+            input.resetSizeCounter();
+            return event;
+        }
+    }
+
+    // Proto3 leaves out fields at their default; a missing string is read back as null, like a missing JSON property.
+    private static Event readFields(CodedInputStream input) throws IOException {
+        Event event = new Event();
+        while (true) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                return event;
+            } else if (tag == ID_TAG) {
+                event.setId(input.readInt32());
+            } else if (tag == EVENT_NAME_TAG) {
+                event.setEventName(input.readStringRequireUtf8());
+            } else if (tag == ORGANIZER_TAG) {
+                event.setOrganizer(input.readStringRequireUtf8());
+            } else if (tag == VERSION_TAG) {
+                event.setVersion(input.readInt32());
+            } else if (tag == START_TIME_TAG) {
+                event.setStartTime(readTimestamp(input));
+            } else if (tag == END_TIME_TAG) {
+                event.setEndTime(readTimestamp(input));
+            } else if (tag == STATUS_TAG) {
+                event.setStatus(status(input.readEnum()));
+            } else {
+                input.skipField(tag);
+            }
+        }
+    }
+
+    private static Instant readTimestamp(CodedInputStream input) throws IOException {
+        int limit = input.pushLimit(input.readRawVarint32());
+        long seconds = 0;
+        int nanos = 0;
+        while (true) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                break;
+            } else if (tag == SECONDS_TAG) {
+                seconds = input.readInt64();
+            } else if (tag == NANOS_TAG) {
+                nanos = input.readInt32();
+            } else {
+                input.skipField(tag);
+            }
+        }
+        input.popLimit(limit);
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    // Mapped by name rather than by ordinal, so reordering or adding constants in the model cannot change the wire
+    // format. Unknown values fall back to the default status, as a missing one does.
+    private static EventStatus status(int number) {
+        switch (number) {
+            case SCHEDULED:
+                return EventStatus.SCHEDULED;
+            case POSTPONED:
+                return EventStatus.POSTPONED;
+            case CANCELLED:
+                return EventStatus.CANCELLED;
+            default:
+                return null;
+        }
+    }
+
+    private static int statusNumber(EventStatus status) {
+        switch (status) {
+            case SCHEDULED:
+                return SCHEDULED;
+            case POSTPONED:
+                return POSTPONED;
+            case CANCELLED:
+                return CANCELLED;
+            default:
+                throw new IllegalArgumentException("No protobuf number for status " + status);
+        }
+    }
+
+    private static int tag(int fieldNumber, int wireType) {
+        return fieldNumber << 3 | wireType;
+    }
+
+    private static void writeFields(Event event, CodedOutputStream output) throws IOException {
+        writeFields(event.getId(), event.getEventName(), event.getOrganizer(), event.getVersion(),
+                event.getStartTime(), event.getEndTime(), event.getStatus(), output);
+    }
+
+    private static void writeFields(EventSummary summary, CodedOutputStream output) throws IOException {
+        writeFields(summary.getId(), summary.getEventName(), summary.getOrganizer(), summary.getVersion(),
+                summary.getStartTime(), summary.getEndTime(), summary.getStatus(), output);
+    }
+
+    private static void writeFields(int id, String eventName, String organizer, int version, Instant startTime,
+                                    Instant endTime, EventStatus status, CodedOutputStream output) throws IOException {
+        if (id != 0) {
+            output.writeInt32(ID, id);
+        }
+        if (eventName != null) {
+            output.writeString(EVENT_NAME, eventName);
+        }
+        if (organizer != null) {
+            output.writeString(ORGANIZER, organizer);
+        }
+        if (version != 0) {
+            output.writeInt32(VERSION, version);
+        }
+        writeTimestamp(START_TIME, startTime, output);
+        writeTimestamp(END_TIME, endTime, output);
+        if (status != null) {
+            output.writeEnum(STATUS, statusNumber(status));
+        }
+    }
+
+    // A google.protobuf.Timestamp, written as the embedded message it is.
+    private static void writeTimestamp(int fieldNumber, Instant instant, CodedOutputStream output) throws IOException {
+        if (instant != null) {
+            output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(timestampSize(instant));
+            if (instant.getEpochSecond() != 0) {
+                output.writeInt64(SECONDS, instant.getEpochSecond());
+            }
+            if (instant.getNano() != 0) {
+                output.writeInt32(NANOS, instant.getNano());
+            }
+        }
+    }
+
+    private static int size(Event event) {
+        return size(event.getId(), event.getEventName(), event.getOrganizer(), event.getVersion(),
+                event.getStartTime(), event.getEndTime(), event.getStatus());
+    }
+
+    private static int size(EventSummary summary) {
+        return size(summary.getId(), summary.getEventName(), summary.getOrganizer(), summary.getVersion(),
+                summary.getStartTime(), summary.getEndTime(), summary.getStatus());
+    }
+
+    private static int size(int id, String eventName, String organizer, int version, Instant startTime,
+                            Instant endTime, EventStatus status) {
+        int size = 0;
+        if (id != 0) {
+            size += CodedOutputStream.computeInt32Size(ID, id);
+        }
+        if (eventName != null) {
+            size += CodedOutputStream.computeStringSize(EVENT_NAME, eventName);
+        }
+        if (organizer != null) {
+            size += CodedOutputStream.computeStringSize(ORGANIZER, organizer);
+        }
+        if (version != 0) {
+            size += CodedOutputStream.computeInt32Size(VERSION, version);
+        }
+        size += timestampFieldSize(START_TIME, startTime);
+        size += timestampFieldSize(END_TIME, endTime);
+        if (status != null) {
+            size += CodedOutputStream.computeEnumSize(STATUS, statusNumber(status));
+        }
+        return size;
+    }
+
+    private static int timestampFieldSize(int fieldNumber, Instant instant) {
+        if (instant == null) {
+            return 0;
+        }
+        int size = timestampSize(instant);
+        return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    private static int timestampSize(Instant instant) {
+        int size = 0;
+        if (instant.getEpochSecond() != 0) {
+            size += CodedOutputStream.computeInt64Size(SECONDS, instant.getEpochSecond());
+        }
+        if (instant.getNano() != 0) {
+            size += CodedOutputStream.computeInt32Size(NANOS, instant.getNano());
+        }
+        return size;
+    }
+}
@@ -0,0 +1,91 @@
+package fact.it.eventservice.protobuf;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import fact.it.eventservice.controller.EventController;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventSummary;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * application/x-protobuf for events: writes an {@link Event} or {@link EventSummary} as an Event message and a
+ * collection of them as an EventList, reads request bodies as an {@link Event}. Other bodies, such as the
+ * change feed or batch results, have no protobuf form and stay JSON, Smile or CBOR.
+ */
+public class EventProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public EventProtobufHttpMessageConverter() {
+        super(EventController.APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return isEvent(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return type == Event.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (type == null || !Collection.class.isAssignableFrom(clazz)) {
+            return canWrite(clazz, mediaType);
+        }
+        Class<?> element = ResolvableType.forType(type).asCollection().resolveGeneric(0);
+        return element != null && isEvent(element) && canWrite(mediaType);
+    }
+
+    // Spring MVC asks for the media types by the class of the body, which for a listing says nothing about its
+    // elements; canWrite with the declared type has already checked those.
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return Collection.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : super.getSupportedMediaTypes(clazz);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(Event.class, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return EventProtobuf.readEvent(inputMessage.getBody());
+        } catch (InvalidProtocolBufferException e) {
+            throw new HttpMessageNotReadableException("Malformed protobuf event: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    // canWrite only lets through collections declared with Event or EventSummary elements.
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof Collection) {
+            if (ResolvableType.forType(type).asCollection().resolveGeneric(0) == EventSummary.class) {
+                EventProtobuf.writeSummaryList((Collection<EventSummary>) body, outputMessage.getBody());
+            } else {
+                EventProtobuf.writeEventList((Collection<Event>) body, outputMessage.getBody());
+            }
+        } else if (body instanceof EventSummary) {
+            EventProtobuf.writeEvent((EventSummary) body, outputMessage.getBody());
+        } else {
+            EventProtobuf.writeEvent((Event) body, outputMessage.getBody());
+        }
+    }
+
+    private static boolean isEvent(Class<?> clazz) {
+        return clazz == Event.class || clazz == EventSummary.class;
+    }
+}
@@ -0,0 +1,20 @@
+package fact.it.eventservice.repository;
+
+import fact.it.eventservice.model.EventChangePosition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface EventChangePositionRepository extends JpaRepository<EventChangePosition, Integer> {
+
+    // select ... for update: held until the relay's transaction ends.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from EventChangePosition p where p.id = :id")
+    Optional<EventChangePosition> lock(@Param("id") int id);
+}
@@ -0,0 +1,58 @@
+package fact.it.eventservice.repository;
+
+import fact.it.eventservice.model.EventChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventChangeRepository extends JpaRepository<EventChange, Long> {
+
+    // Outbox writes: insert-selects that record the event as it is inside the writing transaction, so an
+    // update records the version it just wrote without reading it back. MANDATORY makes sure they never
+    // commit on their own, apart from the change they describe.
+    String RECORD = "insert into EventChange (type, eventId, eventName, organizer, version) select ";
+    String FROM_EVENT = ", e.id, e.eventName, e.organizer, e.version from Event e where ";
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying(flushAutomatically = true)
+    @Query(RECORD + "'" + EventChange.CREATED + "'" + FROM_EVENT + "e.eventName in :eventNames")
+    int recordCreated(@Param("eventNames") Collection<String> eventNames);
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying(flushAutomatically = true)
+    @Query(RECORD + "'" + EventChange.UPDATED + "'" + FROM_EVENT + "e.eventName = :eventName")
+    int recordUpdated(@Param("eventName") String eventName);
+
+    // Recorded before the delete, while the row can still be read; the delete rolls it back if it misses.
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying(flushAutomatically = true)
+    @Query(RECORD + "'" + EventChange.DELETED + "'" + FROM_EVENT + "e.eventName = :eventName")
+    int recordDeleted(@Param("eventName") String eventName);
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying(flushAutomatically = true)
+    @Query(RECORD + "'" + EventChange.DELETED + "'" + FROM_EVENT + "e.eventName = :eventName and e.version = :version")
+    int recordDeleted(@Param("eventName") String eventName, @Param("version") int version);
+
+    @Query("select c from EventChange c where c.offset is null order by c.id")
+    List<EventChange> findUnrelayed(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("select c from EventChange c where c.offset > :offset order by c.offset")
+    List<EventChange> findChangesAfter(@Param("offset") long offset, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from EventChange c where c.changedAt < :before and c.offset is not null")
+    int deleteRelayedBefore(@Param("before") Instant before);
+}
@@ -1,15 +1,101 @@
 package fact.it.eventservice.repository;
 
 import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.annotations.QueryHints.FETCH_SIZE;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Integer> {
+public interface EventRepository extends JpaRepository<Event, Integer>, EventRepositoryCustom {
     Event findEventByEventName(String eventName);
     List<Event> findEventsByOrganizer(String organizer);
     List<Event> findAll();
 
+    @Query("select e.eventName from Event e where e.eventName in :eventNames")
+    Set<String> findExistingEventNames(@Param("eventNames") Collection<String> eventNames);
+
+    // Read paths. The constructor expressions return EventSummary objects Hibernate never manages, and the
+    // read-only transaction skips the flush; the writes below keep using the entity.
+    String SUMMARY = "select new fact.it.eventservice.model.EventSummary(e.id, e.eventName, e.organizer, e.version, e.startTime, e.endTime, e.status) from Event e";
+
+    @Transactional(readOnly = true)
+    @Query(SUMMARY)
+    List<EventSummary> findAllSummaries();
+
+    @Transactional(readOnly = true)
+    @Query(SUMMARY + " where e.eventName = :eventName")
+    EventSummary findSummaryByEventName(@Param("eventName") String eventName);
+
+    @Transactional(readOnly = true)
+    @Query(SUMMARY + " where e.eventName in :eventNames")
+    List<EventSummary> findSummariesByEventNames(@Param("eventNames") Collection<String> eventNames);
+
+    @Transactional(readOnly = true)
+    @Query(SUMMARY + " where e.organizer = :organizer order by e.id")
+    List<EventSummary> findSummariesByOrganizer(@Param("organizer") String organizer);
+
+    // Keyset pagination: seek past the last id of the previous page instead of using an offset.
+    @Transactional(readOnly = true)
+    @Query(SUMMARY + " where e.id > :id order by e.id")
+    List<EventSummary> findSummariesAfter(@Param("id") int id, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query(SUMMARY + " where e.organizer = :organizer and e.id > :id order by e.id")
+    List<EventSummary> findSummariesByOrganizerAfter(@Param("organizer") String organizer, @Param("id") int id, Pageable pageable);
+
+    // Range queries over the start time, keyset paginated on (startTime, id) through event_start_time_id_idx. The
+    // first page starts after (from, 0), which is every event starting at from or later. JPQL has no row value
+    // comparison, and Postgres cannot start an index scan at an or: the redundant startTime >= :afterStart gives
+    // the scan its lower bound, the or only filters the rows at the boundary.
+    String STARTING_AFTER = " where e.startTime >= :afterStart"
+            + " and (e.startTime > :afterStart or (e.startTime = :afterStart and e.id > :afterId))";
+
+    @Transactional(readOnly = true)
+    @Query(SUMMARY + STARTING_AFTER + " order by e.startTime, e.id")
+    List<EventSummary> findSummariesStartingAfter(@Param("afterStart") Instant afterStart, @Param("afterId") int afterId,
+                                                  Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query(SUMMARY + STARTING_AFTER + " and e.startTime < :to order by e.startTime, e.id")
+    List<EventSummary> findSummariesStartingAfter(@Param("afterStart") Instant afterStart, @Param("afterId") int afterId,
+                                                  @Param("to") Instant to, Pageable pageable);
+
+    // Streams must be consumed inside a transaction, the fetch size keeps the JDBC driver from buffering every row.
+    @QueryHints(@QueryHint(name = FETCH_SIZE, value = "500"))
+    @Query(SUMMARY + " order by e.id")
+    Stream<EventSummary> streamSummaries();
+
+    @QueryHints(@QueryHint(name = FETCH_SIZE, value = "500"))
+    @Query(SUMMARY + " where e.organizer = :organizer order by e.id")
+    Stream<EventSummary> streamSummariesByOrganizer(@Param("organizer") String organizer);
+
+    // Single-statement writes: no SELECT or merge first, the affected-row count tells whether the event exists
+    // (or, for the versioned variants, whether it was still at the expected version). Updates are in
+    // EventRepositoryImpl, they return the new version as well.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Event e where e.eventName = :eventName")
+    int deleteByEventName(@Param("eventName") String eventName);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Event e where e.eventName = :eventName and e.version = :version")
+    int deleteByEventName(@Param("eventName") String eventName, @Param("version") int version);
+
+    boolean existsByEventName(String eventName);
 }
@@ -0,0 +1,15 @@
+package fact.it.eventservice.repository;
+
+import fact.it.eventservice.model.EventStatus;
+
+import java.time.Instant;
+
+public interface EventRepositoryCustom {
+
+    /**
+     * Updates the event in a single statement and returns the version it now has, or null when there is no
+     * such event or, with an expected version, when it is no longer at that version.
+     */
+    Integer updateReturningVersion(String eventName, String organizer, Instant startTime, Instant endTime,
+                                   EventStatus status, Integer expectedVersion);
+}
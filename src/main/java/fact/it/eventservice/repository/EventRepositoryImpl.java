@@ -0,0 +1,70 @@
+package fact.it.eventservice.repository;
+
+import fact.it.eventservice.model.EventStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The update of PUT /events, written in SQL: Postgres hands the new version back from the update itself with
+ * returning, so the response needs no read before or after the write. H2, which only the tests and benchmarks
+ * run on, has no returning and reads the version back in the same transaction.
+ */
+public class EventRepositoryImpl implements EventRepositoryCustom {
+
+    private static final String UPDATE = "update event set organizer = ?, start_time = ?, end_time = ?, status = ?,"
+            + " version = version + 1 where event_name = ?";
+    private static final String EXPECTED_VERSION = " and version = ?";
+    private static final ResultSetExtractor<Integer> VERSION = resultSet -> resultSet.next() ? resultSet.getInt(1) : null;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean returning;
+
+    public EventRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public Integer updateReturningVersion(String eventName, String organizer, Instant startTime, Instant endTime,
+                                          EventStatus status, Integer expectedVersion) {
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(organizer);
+        parameters.add(timestamp(startTime));
+        parameters.add(timestamp(endTime));
+        parameters.add(status.name());
+        parameters.add(eventName);
+        String sql = UPDATE;
+        if (expectedVersion != null) {
+            sql += EXPECTED_VERSION;
+            parameters.add(expectedVersion);
+        }
+        if (supportsReturning()) {
+            return jdbcTemplate.query(sql + " returning version", VERSION, parameters.toArray());
+        }
+        if (jdbcTemplate.update(sql, parameters.toArray()) == 0) {
+            return null;
+        }
+        return jdbcTemplate.query("select version from event where event_name = ?", VERSION, eventName);
+    }
+
+    private boolean supportsReturning() {
+        Boolean supported = returning;
+        if (supported == null) {
+            supported = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            returning = supported;
+        }
+        return supported;
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return instant == null ? null : Timestamp.from(instant);
+    }
+}
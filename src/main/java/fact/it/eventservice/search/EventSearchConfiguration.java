@@ -0,0 +1,27 @@
+package fact.it.eventservice.search;
+
+import fact.it.eventservice.cache.EventInvalidationBus;
+import fact.it.eventservice.repository.EventRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+public class EventSearchConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "events.search.type", havingValue = "postgres", matchIfMissing = true)
+    public EventSearchIndex postgresEventSearchIndex(JdbcTemplate jdbcTemplate) {
+        return new PostgresEventSearchIndex(jdbcTemplate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "events.search.type", havingValue = "memory")
+    public EventSearchIndex inMemoryEventSearchIndex(EventRepository eventRepository,
+                                                     PlatformTransactionManager transactionManager,
+                                                     EventInvalidationBus invalidationBus) {
+        return new InMemoryEventSearchIndex(eventRepository, transactionManager, invalidationBus);
+    }
+}
@@ -0,0 +1,24 @@
+package fact.it.eventservice.search;
+
+import fact.it.eventservice.model.EventSummary;
+
+/**
+ * An event found by {@link EventSearchIndex} together with the rank it was found in.
+ */
+public final class EventSearchHit {
+    private final int rank;
+    private final EventSummary event;
+
+    public EventSearchHit(int rank, EventSummary event) {
+        this.rank = rank;
+        this.event = event;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public EventSummary getEvent() {
+        return event;
+    }
+}
@@ -0,0 +1,51 @@
+package fact.it.eventservice.search;
+
+import fact.it.eventservice.model.EventSummary;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Case-insensitive search over event names and organizers. Results are ranked: events whose name or
+ * organizer equals the term come first, then the ones that contain it. Within a rank they are ordered by
+ * id, so pages are read with the same keyset seek as the listings and never sort every match.
+ */
+public interface EventSearchIndex {
+
+    int EXACT = 0;
+    int PARTIAL = 1;
+
+    /**
+     * Terms shorter than this only match at the start of a name or organizer, anywhere else they would
+     * match most of the table.
+     */
+    int MIN_SUBSTRING_LENGTH = 3;
+
+    /**
+     * One rank of the results: events of that rank with an id above afterId, at most limit of them.
+     * The term is already normalized.
+     */
+    List<EventSummary> find(String term, int rank, int afterId, int limit);
+
+    /**
+     * The next page of results after the given position, continuing with the next rank once one runs out.
+     */
+    @Transactional(readOnly = true)
+    default List<EventSearchHit> search(String query, int rank, int afterId, int limit) {
+        String term = normalize(query);
+        List<EventSearchHit> hits = new ArrayList<>(limit);
+        for (int current = rank; current <= PARTIAL && hits.size() < limit; current++) {
+            int after = current == rank ? afterId : 0;
+            for (EventSummary event : find(term, current, after, limit - hits.size())) {
+                hits.add(new EventSearchHit(current, event));
+            }
+        }
+        return hits;
+    }
+
+    static String normalize(String query) {
+        return query.trim().toLowerCase(Locale.ROOT);
+    }
+}
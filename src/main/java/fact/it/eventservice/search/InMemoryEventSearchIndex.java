@@ -0,0 +1,339 @@
+package fact.it.eventservice.search;
+
+import fact.it.eventservice.cache.EventInvalidation;
+import fact.it.eventservice.cache.EventInvalidationBus;
+import fact.it.eventservice.datasource.DataSourceRouting;
+import fact.it.eventservice.model.EventSummary;
+import fact.it.eventservice.repository.EventRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index kept in memory, for databases without trigram indexes. Every lowercased name and organizer
+ * is indexed under its full value, its first one and two characters and each of its three-character
+ * substrings; the posting list of each key holds the ids of its events in ascending order, so a search
+ * intersects the lists of the term's keys and stops as soon as a page is full.
+ * <p>
+ * The index is read from the table once the service is ready and kept up to date from the invalidation
+ * bus: the events named in a message are read again and only the keys that changed are updated. A flush
+ * rebuilds the whole index. Readers never block, writers replace whole posting lists one at a time and
+ * every match is checked against the current event before it is returned.
+ */
+public class InMemoryEventSearchIndex implements EventSearchIndex {
+
+    // Markers that keep full values and prefixes apart from the three-character substrings.
+    private static final char EXACT_KEY = '\u0001';
+    private static final char PREFIX_KEY = '\u0002';
+    private static final int[] NO_IDS = new int[0];
+
+    private final EventRepository eventRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Object writeLock = new Object();
+    private volatile Index index;
+
+    public InMemoryEventSearchIndex(EventRepository eventRepository, PlatformTransactionManager transactionManager,
+                                    EventInvalidationBus invalidationBus) {
+        this.eventRepository = eventRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    // Reads from the primary like every other update of the index, a lagging replica would hide writes whose
+    // invalidations were already applied.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (writeLock) {
+            try (DataSourceRouting.Scope ignored = DataSourceRouting.primary()) {
+                build();
+            }
+        }
+    }
+
+    private void build() {
+        Index rebuilt = new Index();
+        Map<String, IdList> postings = new HashMap<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<EventSummary> events = eventRepository.streamSummaries()) {
+                // Streamed in id order, so every posting list is built already sorted.
+                events.forEach(event -> {
+                    Document document = new Document(event);
+                    rebuilt.add(document);
+                    for (String key : document.keys()) {
+                        postings.computeIfAbsent(key, k -> new IdList()).add(document.id);
+                    }
+                });
+            }
+        });
+        postings.forEach((key, ids) -> rebuilt.postings.put(key, ids.toArray()));
+        index = rebuilt;
+    }
+
+    private void onInvalidation(EventInvalidation invalidation) {
+        synchronized (writeLock) {
+            if (index == null) {
+                // Not built yet, the build reads these changes from the table.
+                return;
+            }
+            if (invalidation.isFlushAll()) {
+                rebuild();
+            } else if (!invalidation.getEventNames().isEmpty()) {
+                refresh(invalidation.getEventNames());
+            }
+        }
+    }
+
+    // Runs under the write lock, including the read: two refreshes of the same event are applied in the
+    // order their rows were read.
+    private void refresh(Collection<String> eventNames) {
+        Index index = this.index;
+        Map<String, Document> current = new HashMap<>();
+        for (EventSummary event : DataSourceRouting.onPrimary(() -> eventRepository.findSummariesByEventNames(eventNames))) {
+            current.put(event.getEventName(), new Document(event));
+        }
+        Map<String, IdList> added = new HashMap<>();
+        Map<String, IdList> removed = new HashMap<>();
+        for (String eventName : new HashSet<>(eventNames)) {
+            Integer previousId = index.idsByName.get(eventName);
+            Document previous = previousId == null ? null : index.documents.get(previousId);
+            Document next = current.get(eventName);
+            Set<String> previousKeys = previous == null ? Collections.emptySet() : previous.keys();
+            Set<String> nextKeys = next == null ? Collections.emptySet() : next.keys();
+            boolean sameId = previous != null && next != null && previous.id == next.id;
+            for (String key : previousKeys) {
+                if (!sameId || !nextKeys.contains(key)) {
+                    removed.computeIfAbsent(key, k -> new IdList()).add(previous.id);
+                }
+            }
+            for (String key : nextKeys) {
+                if (!sameId || !previousKeys.contains(key)) {
+                    added.computeIfAbsent(key, k -> new IdList()).add(next.id);
+                }
+            }
+            if (previous != null) {
+                index.remove(previous);
+            }
+            if (next != null) {
+                index.add(next);
+            }
+        }
+        Set<String> changedKeys = new HashSet<>(added.keySet());
+        changedKeys.addAll(removed.keySet());
+        for (String key : changedKeys) {
+            int[] ids = merge(index.postings.getOrDefault(key, NO_IDS), added.get(key), removed.get(key));
+            if (ids.length == 0) {
+                index.postings.remove(key);
+            } else {
+                index.postings.put(key, ids);
+            }
+        }
+    }
+
+    @Override
+    public List<EventSummary> find(String term, int rank, int afterId, int limit) {
+        Index index = this.index;
+        if (index == null) {
+            rebuild();
+            index = this.index;
+        }
+        if (term.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<int[]> postings = new ArrayList<>();
+        for (String key : rank == EXACT ? Collections.singleton(EXACT_KEY + term) : termKeys(term)) {
+            int[] ids = index.postings.get(key);
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            postings.add(ids);
+        }
+        // Walk the shortest list and look its ids up in the others.
+        postings.sort(Comparator.comparingInt(ids -> ids.length));
+        int[] candidates = postings.get(0);
+        List<EventSummary> events = new ArrayList<>(Math.min(limit, candidates.length));
+        int start = Arrays.binarySearch(candidates, afterId);
+        for (int i = start < 0 ? -start - 1 : start + 1; i < candidates.length && events.size() < limit; i++) {
+            int id = candidates[i];
+            if (!inAll(postings, id)) {
+                continue;
+            }
+            Document document = index.documents.get(id);
+            if (document != null && (rank == EXACT ? document.matchesExactly(term) : document.matchesPartially(term))) {
+                events.add(document.event);
+            }
+        }
+        return events;
+    }
+
+    private static Set<String> termKeys(String term) {
+        Set<String> keys = new HashSet<>();
+        if (term.length() < MIN_SUBSTRING_LENGTH) {
+            keys.add(PREFIX_KEY + term);
+        } else {
+            addSubstrings(term, keys);
+        }
+        return keys;
+    }
+
+    private static void addSubstrings(String value, Set<String> keys) {
+        for (int i = 0; i + MIN_SUBSTRING_LENGTH <= value.length(); i++) {
+            keys.add(value.substring(i, i + MIN_SUBSTRING_LENGTH));
+        }
+    }
+
+    private static boolean inAll(List<int[]> postings, int id) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (Arrays.binarySearch(postings.get(i), id) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Sorted ids plus the added ones minus the removed ones, as a new array: published lists are never changed.
+    private static int[] merge(int[] ids, IdList added, IdList removed) {
+        int[] additions = added == null ? NO_IDS : added.toSortedArray();
+        int[] removals = removed == null ? NO_IDS : removed.toSortedArray();
+        IdList merged = new IdList(ids.length + additions.length);
+        int i = 0;
+        int j = 0;
+        while (i < ids.length || j < additions.length) {
+            int id;
+            if (j == additions.length || (i < ids.length && ids[i] < additions[j])) {
+                id = ids[i++];
+            } else if (i == ids.length || additions[j] < ids[i]) {
+                id = additions[j++];
+            } else {
+                id = ids[i++];
+                j++;
+            }
+            if (Arrays.binarySearch(removals, id) < 0 || Arrays.binarySearch(additions, id) >= 0) {
+                merged.add(id);
+            }
+        }
+        return merged.toArray();
+    }
+
+    private static final class Index {
+        private final Map<String, int[]> postings = new ConcurrentHashMap<>();
+        private final Map<Integer, Document> documents = new ConcurrentHashMap<>();
+        private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+
+        private void add(Document document) {
+            documents.put(document.id, document);
+            if (document.event.getEventName() != null) {
+                idsByName.put(document.event.getEventName(), document.id);
+            }
+        }
+
+        private void remove(Document document) {
+            documents.remove(document.id);
+            if (document.event.getEventName() != null) {
+                idsByName.remove(document.event.getEventName(), document.id);
+            }
+        }
+    }
+
+    private static final class Document {
+        private final int id;
+        private final EventSummary event;
+        private final String eventName;
+        private final String organizer;
+
+        private Document(EventSummary event) {
+            this.id = event.getId();
+            this.event = event;
+            this.eventName = lowerCase(event.getEventName());
+            this.organizer = lowerCase(event.getOrganizer());
+        }
+
+        private Set<String> keys() {
+            Set<String> keys = new HashSet<>();
+            addKeys(eventName, keys);
+            addKeys(organizer, keys);
+            return keys;
+        }
+
+        private static void addKeys(String value, Set<String> keys) {
+            if (value == null) {
+                return;
+            }
+            keys.add(EXACT_KEY + value);
+            for (int length = 1; length < MIN_SUBSTRING_LENGTH && length <= value.length(); length++) {
+                keys.add(PREFIX_KEY + value.substring(0, length));
+            }
+            addSubstrings(value, keys);
+        }
+
+        private boolean matchesExactly(String term) {
+            return term.equals(eventName) || term.equals(organizer);
+        }
+
+        private boolean matchesPartially(String term) {
+            if (matchesExactly(term)) {
+                return false;
+            }
+            return term.length() < MIN_SUBSTRING_LENGTH
+                    ? startsWith(eventName, term) || startsWith(organizer, term)
+                    : contains(eventName, term) || contains(organizer, term);
+        }
+
+        private static boolean startsWith(String value, String term) {
+            return value != null && value.startsWith(term);
+        }
+
+        private static boolean contains(String value, String term) {
+            return value != null && value.contains(term);
+        }
+
+        private static String lowerCase(String value) {
+            return value == null ? null : value.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final class IdList {
+        private int[] ids;
+        private int size;
+
+        private IdList() {
+            this(4);
+        }
+
+        private IdList(int capacity) {
+            ids = new int[Math.max(capacity, 1)];
+        }
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        private int[] toSortedArray() {
+            int[] sorted = toArray();
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package fact.it.eventservice.search;
+
+import fact.it.eventservice.model.EventStatus;
+import fact.it.eventservice.model.EventSummary;
+import org.postgresql.PGStatement;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Searches the event table itself through the lower(...) btree and trigram indexes of V4. Every rank is
+ * one keyset query ordered by id: a term that matches few events is served by the indexes, one that
+ * matches most of them by walking the primary key until the page is full.
+ * <p>
+ * Which of the two depends on the term, so the statements are never prepared on the server: a generic plan
+ * that the driver reuses after a few executions knows neither the term nor that the pattern has no leading
+ * wildcard, and falls back to scanning the table.
+ */
+public class PostgresEventSearchIndex implements EventSearchIndex {
+
+    private static final String SELECT = "select id, event_name, organizer, version, start_time, end_time, status from event where ";
+    private static final String PAGE = " and id > ? order by id limit ?";
+    private static final String EXACT_QUERY = SELECT
+            + "(lower(event_name) = ? or lower(organizer) = ?)" + PAGE;
+    // like's default escape character is the backslash, see escape().
+    private static final String PARTIAL_QUERY = SELECT
+            + "(lower(event_name) like ? or lower(organizer) like ?)"
+            + " and (lower(event_name) = ?) is not true and (lower(organizer) = ?) is not true" + PAGE;
+
+    private static final RowMapper<EventSummary> SUMMARY = (rs, rowNum) ->
+            new EventSummary(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getInt(4),
+                    instant(rs.getTimestamp(5)), instant(rs.getTimestamp(6)), EventStatus.valueOf(rs.getString(7)));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresEventSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<EventSummary> find(String term, int rank, int afterId, int limit) {
+        if (rank == EXACT) {
+            return query(EXACT_QUERY, term, term, afterId, limit);
+        }
+        String pattern = term.length() < MIN_SUBSTRING_LENGTH ? escape(term) + "%" : "%" + escape(term) + "%";
+        return query(PARTIAL_QUERY, pattern, pattern, term, term, afterId, limit);
+    }
+
+    private List<EventSummary> query(String sql, Object... parameters) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.unwrap(PGStatement.class).setPrepareThreshold(0);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return statement;
+        }, SUMMARY);
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    private static String escape(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
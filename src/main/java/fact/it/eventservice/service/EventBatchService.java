@@ -0,0 +1,174 @@
+package fact.it.eventservice.service;
+
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.changes.EventChangeRelay;
+import fact.it.eventservice.model.BatchResult;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.repository.EventChangeRepository;
+import fact.it.eventservice.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Inserts events in chunks, each chunk in its own transaction so Hibernate can send it as JDBC batches.
+ * Items that would violate the unique event name are reported instead of failing the whole request.
+ */
+@Service
+public class EventBatchService {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventChangeRepository eventChangeRepository;
+
+    @Autowired
+    private EventChangeRelay eventChangeRelay;
+
+    @Autowired
+    private EventCache eventCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${events.batch.chunk-size:500}")
+    private int chunkSize;
+
+    public BatchResult ingest(Iterator<Event> events) {
+        BatchResult result = new BatchResult();
+        Set<String> seenEventNames = new HashSet<>();
+        List<Event> chunk = new ArrayList<>(chunkSize);
+        List<Integer> indexes = new ArrayList<>(chunkSize);
+
+        int index = 0;
+        while (events.hasNext()) {
+            Event event = events.next();
+            if (event == null) {
+                result.failed(index, null, "event is required");
+            } else if (event.getEventName() == null || event.getEventName().isEmpty()) {
+                result.failed(index, event.getEventName(), "eventName is required");
+            } else if (event.endsBeforeItStarts()) {
+                result.failed(index, event.getEventName(), "endTime is before startTime");
+            } else if (!seenEventNames.add(event.getEventName())) {
+                result.failed(index, event.getEventName(), "eventName is duplicated in this batch");
+            } else {
+                chunk.add(event);
+                indexes.add(index);
+            }
+            index++;
+
+            if (chunk.size() == chunkSize) {
+                saveChunk(chunk, indexes, result);
+            }
+        }
+        saveChunk(chunk, indexes, result);
+        result.getFailures().sort(Comparator.comparingInt(BatchResult.Failure::getIndex));
+        return result;
+    }
+
+    private void saveChunk(List<Event> chunk, List<Integer> indexes, BatchResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<String> existing = eventRepository.findExistingEventNames(eventNames(chunk));
+        List<Event> toInsert = new ArrayList<>(chunk.size());
+        List<Integer> toInsertIndexes = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Event event = chunk.get(i);
+            if (existing.contains(event.getEventName())) {
+                result.failed(indexes.get(i), event.getEventName(), "eventName already exists");
+            } else {
+                event.setId(0);
+                event.setVersion(0);
+                toInsert.add(event);
+                toInsertIndexes.add(indexes.get(i));
+            }
+        }
+
+        try {
+            transaction().executeWithoutResult(status -> insert(toInsert));
+            evict(toInsert);
+            result.accepted(toInsert.size());
+        } catch (DataIntegrityViolationException e) {
+            // Another writer claimed one of the names after the existence check, or a row broke another
+            // constraint (a value too long, say); fall back to one transaction per item so only those rows are rejected.
+            for (int i = 0; i < toInsert.size(); i++) {
+                Event event = toInsert.get(i);
+                event.setId(0);
+                event.setVersion(0);
+                try {
+                    transaction().executeWithoutResult(status -> insert(List.of(event)));
+                    evict(List.of(event));
+                    result.accepted(1);
+                } catch (DataIntegrityViolationException rejected) {
+                    result.failed(toInsertIndexes.get(i), event.getEventName(),
+                            isUniqueViolation(rejected) ? "eventName already exists" : "rejected by the database: " + sqlState(rejected));
+                }
+            }
+        }
+
+        chunk.clear();
+        indexes.clear();
+    }
+
+    // The chunk's outbox records are one insert-select in the same transaction.
+    private void insert(List<Event> events) {
+        eventRepository.saveAllAndFlush(events);
+        eventChangeRepository.recordCreated(eventNames(events));
+        entityManager.clear();
+    }
+
+    private void evict(List<Event> events) {
+        eventChangeRelay.wakeUp();
+        Set<String> organizers = new HashSet<>();
+        for (Event event : events) {
+            organizers.add(event.getOrganizer());
+        }
+        eventCache.evict(eventNames(events), organizers);
+    }
+
+    // 23505 is unique_violation in Postgres and H2 alike; the event name is the only unique key besides the id.
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        return UNIQUE_VIOLATION.equals(sqlState(e));
+    }
+
+    private static String sqlState(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && ((SQLException) cause).getSQLState() != null) {
+                return ((SQLException) cause).getSQLState();
+            }
+        }
+        return "unknown";
+    }
+
+    private TransactionTemplate transaction() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private static List<String> eventNames(List<Event> events) {
+        List<String> eventNames = new ArrayList<>(events.size());
+        for (Event event : events) {
+            eventNames.add(event.getEventName());
+        }
+        return eventNames;
+    }
+}
@@ -0,0 +1,18 @@
+-- Baseline of the schema Hibernate used to create with ddl-auto=update. The guards let it run against a
+-- database that already has those objects, spring.flyway.baseline-version=0 makes sure it is not skipped.
+create sequence if not exists event_seq start with 1 increment by 50;
+
+create table if not exists event (
+    id         integer      not null,
+    event_name varchar(255),
+    organizer  varchar(255),
+    version    integer      default 0 not null,
+    constraint event_pkey primary key (id),
+    constraint event_event_name_key unique (event_name)
+);
+
+alter table event add column if not exists version integer default 0 not null;
+
+-- Hibernate's pooled optimizer hands out the 50 ids below each sequence value, so move past the highest id in
+-- use, but never backwards: running instances may still be allocating from their current block.
+select setval('event_seq', greatest((select last_value from event_seq), (select coalesce(max(id), 0) from event) + 50));
@@ -0,0 +1,6 @@
+-- Serves findEventsByOrganizer and the keyset listing per organizer (organizer = ? and id > ? order by id)
+-- from the index alone: the leading column replaces a plain index on organizer, the trailing columns make
+-- it covering so an index-only scan never visits the heap. Trailing key columns rather than INCLUDE, CI and
+-- older installs still run Postgres 10. Since V6 the listings also return the schedule columns, V7 rebuilds
+-- the index with them so it stays covering.
+create index if not exists event_organizer_id_idx on event (organizer, id, event_name, version);
@@ -0,0 +1,9 @@
+-- The demo events the controller used to save one by one on every start while the table was empty.
+-- A single statement that only inserts into an empty table, so it is safe on databases seeded that way.
+insert into event (id, event_name, organizer, version)
+select nextval('event_seq'), seed.event_name, seed.organizer, 0
+from (values ('Event1', 'Organizer1'),
+             ('Event2', 'Organizer2'),
+             ('Event3', 'Organizer3'),
+             ('EventTBD', 'OrganizerTBD')) as seed (event_name, organizer)
+where not exists (select 1 from event);
@@ -0,0 +1,12 @@
+-- Serves GET /events/search. Matching is case-insensitive, so every index is on lower(column) and the
+-- queries compare lower(column) with an already lowercased term.
+-- Exact and prefix matches (lower(x) = ? and lower(x) like 'abc%') are btree range scans; text_pattern_ops
+-- makes like usable whatever the database collation is.
+create index if not exists event_event_name_lower_idx on event (lower(event_name) text_pattern_ops);
+create index if not exists event_organizer_lower_idx on event (lower(organizer) text_pattern_ops);
+
+-- Substring matches (lower(x) like '%abc%') go through trigram indexes. pg_trgm ships with Postgres but
+-- creating it needs a role that may create extensions (superuser on Postgres 10 to 12).
+create extension if not exists pg_trgm;
+create index if not exists event_event_name_trgm_idx on event using gin (lower(event_name) gin_trgm_ops);
+create index if not exists event_organizer_trgm_idx on event using gin (lower(organizer) gin_trgm_ops);
@@ -0,0 +1,29 @@
+-- Outbox of every insert, update and delete of an event, written in the same transaction as the change.
+-- change_offset stays null until the relay picks the row up: offsets are handed out in the order the
+-- changes became visible, ids are taken when the row is inserted and can commit out of order.
+create table if not exists event_change (
+    id            bigint      generated by default as identity,
+    change_offset bigint,
+    type          varchar(16) not null,
+    event_id      integer,
+    event_name    varchar(255),
+    organizer     varchar(255),
+    version       integer,
+    changed_at    timestamp   not null default current_timestamp,
+    constraint event_change_pkey primary key (id),
+    constraint event_change_offset_key unique (change_offset)
+);
+
+-- The relay's scan for changes without an offset; stays small because rows leave it once relayed.
+create index if not exists event_change_unrelayed_idx on event_change (id) where change_offset is null;
+
+-- Single row holding the last offset handed out. The relay locks it, so only one replica relays at a time.
+create table if not exists event_change_position (
+    id          integer not null,
+    last_offset bigint  not null,
+    constraint event_change_position_pkey primary key (id)
+);
+
+insert into event_change_position (id, last_offset)
+select 1, 0
+where not exists (select 1 from event_change_position);
@@ -0,0 +1,24 @@
+-- When an event takes place. Existing events have no schedule; they are left out of range queries and
+-- never archived.
+alter table event add column if not exists start_time timestamptz;
+alter table event add column if not exists end_time timestamptz;
+alter table event add column if not exists status varchar(16) default 'SCHEDULED' not null;
+
+-- Serves GET /events?from=&to=, keyset paginated on (start_time, id).
+create index if not exists event_start_time_id_idx on event (start_time, id);
+
+-- Events that ended longer than events.archive.after ago move here, so the event table and its indexes only
+-- hold recent and upcoming events. Ranged by month of the start time: a range query only scans the months it
+-- covers. Postgres 10 has no default partition, indexes on the parent or unique constraints across partitions;
+-- the archiver creates each month's partition and its index before it moves rows into it, and event names are
+-- only unique among the live events.
+create table if not exists event_archive (
+    id          integer      not null,
+    event_name  varchar(255),
+    organizer   varchar(255),
+    version     integer      not null,
+    start_time  timestamptz  not null,
+    end_time    timestamptz,
+    status      varchar(16)  not null,
+    archived_at timestamptz  not null default current_timestamp
+) partition by range (start_time);
@@ -0,0 +1,7 @@
+-- The organizer listings select the schedule columns of V6 (start_time, end_time, status) since they return
+-- them, and the index of V2 no longer covers them: every listed row was fetched from the heap again. Built
+-- again with those columns trailing, under a temporary name so the listings keep an index until it is done.
+create index if not exists event_organizer_summary_idx
+    on event (organizer, id, event_name, version, start_time, end_time, status);
+drop index if exists event_organizer_id_idx;
+alter index event_organizer_summary_idx rename to event_organizer_id_idx;
@@ -0,0 +1,112 @@
+package fact.it.eventservice;
+
+import fact.it.eventservice.archive.EventArchive;
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventChange;
+import fact.it.eventservice.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class EventArchiveTests {
+
+    private static final Instant CUTOFF = Instant.parse("2021-01-01T00:00:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventCache eventCache;
+
+    @Autowired
+    private EventArchive eventArchive;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void beforeAllTests(){
+        eventRepository.deleteAllInBatch();
+        jdbcTemplate.update("delete from event_archive");
+        eventCache.evictAll();
+        eventRepository.save(new Event("PastEvent1", "TestOrganizer1",
+                Instant.parse("2020-01-10T18:00:00Z"), Instant.parse("2020-01-10T22:00:00Z")));
+        eventRepository.save(new Event("PastEvent2", "TestOrganizer1",
+                Instant.parse("2020-02-20T18:00:00Z"), null));
+        // Started before the cutoff, but has not ended by then.
+        eventRepository.save(new Event("LongEvent", "TestOrganizer1",
+                Instant.parse("2020-12-01T00:00:00Z"), Instant.parse("2021-02-01T00:00:00Z")));
+        eventRepository.save(new Event("UnscheduledEvent", "TestOrganizer1"));
+    }
+
+    @AfterEach
+    public void afterAllTests(){
+        eventRepository.deleteAllInBatch();
+        jdbcTemplate.update("delete from event_archive");
+    }
+
+    @Test
+    public void givenEndedEvents_whenArchive_thenMoveThemIntoMonthlyPartitions(){
+        assertEquals(2, eventArchive.archiveEndedBefore(CUTOFF));
+
+        assertNull(eventRepository.findEventByEventName("PastEvent1"));
+        assertNull(eventRepository.findEventByEventName("PastEvent2"));
+        assertEquals(2, eventRepository.count());
+        List<String> partitions = jdbcTemplate.queryForList(
+                "select tableoid::regclass::text from event_archive order by start_time", String.class);
+        assertEquals(List.of("event_archive_y2020m01", "event_archive_y2020m02"), partitions);
+        assertEquals(0, eventArchive.archiveEndedBefore(CUTOFF));
+    }
+
+    @Test
+    public void givenArchivedEvents_whenArchive_thenRecordArchivedChanges(){
+        // The outbox keeps the changes of earlier tests and runs.
+        long lastChange = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from event_change", Long.class);
+
+        eventArchive.archiveEndedBefore(CUTOFF);
+
+        assertEquals(List.of("PastEvent1", "PastEvent2"), jdbcTemplate.queryForList(
+                "select event_name from event_change where type = ? and id > ? order by event_name", String.class,
+                EventChange.ARCHIVED, lastChange));
+    }
+
+    @Test
+    public void givenArchivedEvents_whenGetEventsInRange_thenMergeThemWithLiveEvents() throws Exception{
+        eventArchive.archiveEndedBefore(CUTOFF);
+
+        mockMvc.perform(get("/events").param("from", "2020-01-01T00:00:00Z").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].eventName", is("PastEvent1")))
+                .andExpect(jsonPath("$[0].endTime", is("2020-01-10T22:00:00Z")))
+                .andExpect(jsonPath("$[1].eventName", is("PastEvent2")));
+
+        mockMvc.perform(get("/events").param("from", "2020-02-01T00:00:00Z").param("to", "2021-01-01T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].eventName", is("PastEvent2")))
+                .andExpect(jsonPath("$[1].eventName", is("LongEvent")));
+    }
+}
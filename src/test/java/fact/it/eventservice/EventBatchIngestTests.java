@@ -0,0 +1,149 @@
+package fact.it.eventservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.controller.EventController;
+import fact.it.eventservice.model.BatchResult;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.repository.EventRepository;
+import fact.it.eventservice.service.EventBatchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class EventBatchIngestTests {
+
+    private static final int MANY_ROWS = 2000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventCache eventCache;
+
+    @Autowired
+    private EventBatchService eventBatchService;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeEach
+    public void beforeAllTests(){
+        eventRepository.deleteAllInBatch();
+        eventCache.evictAll();
+        eventRepository.save(new Event("ExistingEvent", "TestOrganizer1"));
+    }
+
+    @AfterEach
+    public void afterAllTests(){
+        eventRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void givenJsonArray_whenPostBatch_thenStoreValidEventsAndReportFailures() throws Exception{
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("BatchEvent1", "TestOrganizer1"));
+        events.add(new Event("ExistingEvent", "TestOrganizer2"));
+        events.add(new Event("BatchEvent1", "TestOrganizer2"));
+        events.add(new Event(null, "TestOrganizer2"));
+        events.add(new Event("BatchEvent2", "TestOrganizer2"));
+
+        mockMvc.perform(post("/events/batch")
+                .content(mapper.writeValueAsString(events))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.failed", is(3)))
+                .andExpect(jsonPath("$.failures", hasSize(3)))
+                .andExpect(jsonPath("$.failures[0].index", is(1)))
+                .andExpect(jsonPath("$.failures[0].eventName", is("ExistingEvent")));
+
+        assertNotNull(eventRepository.findEventByEventName("BatchEvent1"));
+        assertNotNull(eventRepository.findEventByEventName("BatchEvent2"));
+        assertEquals("TestOrganizer1", eventRepository.findEventByEventName("ExistingEvent").getOrganizer());
+    }
+
+    @Test
+    public void givenNdjson_whenPostBatch_thenStoreAllEvents() throws Exception{
+        String body = mapper.writeValueAsString(new Event("BatchEvent1", "TestOrganizer1")) + "\n"
+                + mapper.writeValueAsString(new Event("BatchEvent2", "TestOrganizer1")) + "\n";
+
+        mockMvc.perform(post("/events/batch")
+                .content(body)
+                .contentType(EventController.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(2)))
+                .andExpect(jsonPath("$.failed", is(0)));
+
+        assertEquals(3, eventRepository.findEventsByOrganizer("TestOrganizer1").size());
+    }
+
+    @Test
+    public void givenTooLongEventName_whenPostBatch_thenReportItAsRejectedNotAsExisting() throws Exception{
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("E".repeat(300), "TestOrganizer1"));
+        events.add(new Event("BatchEvent1", "TestOrganizer1"));
+
+        mockMvc.perform(post("/events/batch")
+                .content(mapper.writeValueAsString(events))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(1)))
+                .andExpect(jsonPath("$.failures", hasSize(1)))
+                .andExpect(jsonPath("$.failures[0].index", is(0)))
+                .andExpect(jsonPath("$.failures[0].reason", startsWith("rejected by the database")));
+
+        assertNotNull(eventRepository.findEventByEventName("BatchEvent1"));
+    }
+
+    // A JSON null is already rejected while parsing, other callers of the service can still hand one in.
+    @Test
+    public void givenNullEvent_whenIngest_thenReportItAndStoreTheRest(){
+        BatchResult result = eventBatchService.ingest(Arrays.asList(null, new Event("BatchEvent1", "TestOrganizer1")).iterator());
+
+        assertEquals(1, result.getAccepted());
+        assertEquals(1, result.getFailed());
+        assertEquals(0, result.getFailures().get(0).getIndex());
+        assertEquals("event is required", result.getFailures().get(0).getReason());
+    }
+
+    // Spans several chunks of events.batch.chunk-size; how much faster than single inserts this is, is measured
+    // by EventInsertBenchmark.
+    @Test
+    public void givenManyEvents_whenPostBatch_thenStoreAllEvents() throws Exception{
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < MANY_ROWS; i++) {
+            events.add(new Event("BatchEvent" + i, "ManyOrganizer"));
+        }
+
+        mockMvc.perform(post("/events/batch")
+                .content(mapper.writeValueAsString(events))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted", is(MANY_ROWS)))
+                .andExpect(jsonPath("$.failed", is(0)));
+
+        assertEquals(MANY_ROWS, eventRepository.findEventsByOrganizer("ManyOrganizer").size());
+    }
+}
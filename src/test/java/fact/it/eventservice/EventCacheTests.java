@@ -0,0 +1,275 @@
+package fact.it.eventservice;
+
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.cache.EventInvalidationBus;
+import fact.it.eventservice.cache.InMemoryEventInvalidationBus;
+import fact.it.eventservice.model.EventSummary;
+import fact.it.eventservice.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class EventCacheTests {
+
+    private EventRepository eventRepository;
+    private EventCache eventCache;
+
+    @BeforeEach
+    public void beforeAllTests(){
+        eventRepository = mock(EventRepository.class);
+        eventCache = cache(new InMemoryEventInvalidationBus(true));
+    }
+
+    private static EventSummary summary(int id, String eventName, String organizer){
+        return new EventSummary(id, eventName, organizer, 0);
+    }
+
+    private EventCache cache(EventInvalidationBus bus){
+        return new EventCache(eventRepository, bus, 100, Duration.ofMinutes(1), 100, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    public void givenCachedEvent_whenFindEventByEventName_thenQueryRepositoryOnce(){
+        given(eventRepository.findSummaryByEventName("Event1")).willReturn(summary(1, "Event1", "Organizer1"));
+
+        eventCache.findEventByEventName("Event1");
+        EventSummary event = eventCache.findEventByEventName("Event1");
+
+        assertEquals("Organizer1", event.getOrganizer());
+        verify(eventRepository, times(1)).findSummaryByEventName("Event1");
+        assertEquals(1, eventCache.stats().get(EventCache.BY_NAME).hitCount());
+        assertEquals(1, eventCache.stats().get(EventCache.BY_NAME).missCount());
+    }
+
+    @Test
+    public void givenMissingEvent_whenFindEventByEventName_thenCacheAbsence(){
+        assertNull(eventCache.findEventByEventName("EventXXX"));
+        assertNull(eventCache.findEventByEventName("EventXXX"));
+
+        verify(eventRepository, times(1)).findSummaryByEventName("EventXXX");
+    }
+
+    @Test
+    public void givenEvictedEvent_whenFindEventByEventName_thenQueryRepositoryAgain(){
+        given(eventRepository.findSummaryByEventName("Event1")).willReturn(summary(1, "Event1", "Organizer1"));
+
+        eventCache.findEventByEventName("Event1");
+        eventCache.evict("Event1", "Organizer1");
+        eventCache.findEventByEventName("Event1");
+
+        verify(eventRepository, times(2)).findSummaryByEventName("Event1");
+    }
+
+    @Test
+    public void givenMovedEvent_whenEvict_thenOnlyTouchedOrganizersAreReloaded(){
+        given(eventRepository.findSummariesByOrganizer("Organizer1")).willReturn(List.of(summary(1, "Event1", "Organizer1")));
+        given(eventRepository.findSummariesByOrganizer("Organizer2")).willReturn(List.of(summary(2, "Event2", "Organizer2")));
+        given(eventRepository.findSummariesByOrganizer("Organizer3")).willReturn(List.of(summary(3, "Event3", "Organizer3")));
+        eventCache.findEventsByOrganizer("Organizer1");
+        eventCache.findEventsByOrganizer("Organizer2");
+        eventCache.findEventsByOrganizer("Organizer3");
+
+        eventCache.evict("Event1", "Organizer1", "Organizer2");
+        eventCache.findEventsByOrganizer("Organizer1");
+        eventCache.findEventsByOrganizer("Organizer2");
+        eventCache.findEventsByOrganizer("Organizer3");
+
+        verify(eventRepository, times(2)).findSummariesByOrganizer("Organizer1");
+        verify(eventRepository, times(2)).findSummariesByOrganizer("Organizer2");
+        verify(eventRepository, times(1)).findSummariesByOrganizer("Organizer3");
+    }
+
+    @Test
+    public void givenTwoReplicasOnOneBus_whenEvict_thenOtherReplicaReloads(){
+        InMemoryEventInvalidationBus bus = new InMemoryEventInvalidationBus();
+        EventCache replica1 = cache(bus);
+        EventCache replica2 = cache(bus);
+        given(eventRepository.findSummaryByEventName("Event1")).willReturn(summary(1, "Event1", "Organizer1"));
+        given(eventRepository.findSummariesByOrganizer("Organizer1")).willReturn(List.of(summary(1, "Event1", "Organizer1")));
+        replica2.findEventByEventName("Event1");
+        replica2.findEventsByOrganizer("Organizer1");
+
+        replica1.evict("Event1", "Organizer1");
+        replica2.findEventByEventName("Event1");
+        replica2.findEventsByOrganizer("Organizer1");
+
+        verify(eventRepository, times(2)).findSummaryByEventName("Event1");
+        verify(eventRepository, times(2)).findSummariesByOrganizer("Organizer1");
+    }
+
+    @Test
+    public void givenUnknownPreviousOrganizer_whenEvictByName_thenListingsShowingTheEventAreReloadedOnEveryReplica(){
+        InMemoryEventInvalidationBus bus = new InMemoryEventInvalidationBus();
+        EventCache replica1 = cache(bus);
+        EventCache replica2 = cache(bus);
+        given(eventRepository.findSummariesByOrganizer("Organizer1")).willReturn(List.of(summary(1, "Event1", "Organizer1")));
+        given(eventRepository.findSummariesByOrganizer("Organizer2")).willReturn(List.of(summary(2, "Event2", "Organizer2")));
+        replica2.findEventsByOrganizer("Organizer1");
+        replica2.findEventsByOrganizer("Organizer2");
+
+        replica1.evict("Event1");
+        replica2.findEventsByOrganizer("Organizer1");
+        replica2.findEventsByOrganizer("Organizer2");
+
+        verify(eventRepository, times(2)).findSummariesByOrganizer("Organizer1");
+        verify(eventRepository, times(1)).findSummariesByOrganizer("Organizer2");
+    }
+
+    @Test
+    public void givenWriteForOtherOrganizer_whenOrganizerETag_thenUnchanged(){
+        String organizer1 = eventCache.organizerETag("Organizer1");
+        String table = eventCache.tableETag();
+
+        eventCache.evict("Event2", "Organizer2");
+
+        assertEquals(organizer1, eventCache.organizerETag("Organizer1"));
+        assertNotEquals(table, eventCache.tableETag());
+        assertNotEquals(organizer1, eventCache.organizerETag("Organizer2"));
+    }
+
+    @Test
+    public void givenBusNotReachingEveryInstance_whenListingETags_thenNone(){
+        EventCache cache = cache(new InMemoryEventInvalidationBus());
+
+        assertNull(cache.tableETag());
+        assertNull(cache.organizerETag("Organizer1"));
+    }
+
+    @Test
+    public void givenWriteWithUnknownPreviousOrganizer_whenOrganizerETagOnOtherReplica_thenChanged(){
+        InMemoryEventInvalidationBus bus = new InMemoryEventInvalidationBus(true);
+        EventCache replica1 = cache(bus);
+        EventCache replica2 = cache(bus);
+        String organizer1 = replica2.organizerETag("Organizer1");
+
+        replica1.evictUnread("Event1", "Organizer2");
+
+        assertNotEquals(organizer1, replica2.organizerETag("Organizer1"));
+        assertNotEquals(replica1.tableETag(), replica2.tableETag());
+    }
+
+    @Test
+    public void givenConcurrentMisses_whenFindEventByEventName_thenQueryRepositoryOnce() throws Exception {
+        int requests = 32;
+        CountDownLatch release = new CountDownLatch(1);
+        given(eventRepository.findSummaryByEventName("Event1")).willAnswer(invocation -> {
+            release.await();
+            return summary(1, "Event1", "Organizer1");
+        });
+        ExecutorService clients = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<EventSummary>> responses = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                responses.add(clients.submit(() -> eventCache.findEventByEventName("Event1")));
+            }
+            // Hold the query until every other request has joined it.
+            awaitCollapsedLoads(requests - 1);
+            release.countDown();
+
+            for (Future<EventSummary> response : responses) {
+                assertEquals("Organizer1", response.get(5, TimeUnit.SECONDS).getOrganizer());
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        verify(eventRepository, times(1)).findSummaryByEventName("Event1");
+    }
+
+    @Test
+    public void givenEvictionDuringLoad_whenFindEventByEventName_thenNextCallQueriesAgain() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(eventRepository.findSummaryByEventName("Event1")).willAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return summary(1, "Event1", "Organizer1");
+        });
+        ExecutorService clients = Executors.newSingleThreadExecutor();
+        try {
+            Future<EventSummary> stale = clients.submit(() -> eventCache.findEventByEventName("Event1"));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            eventCache.evictUnread("Event1", "Organizer2");
+            release.countDown();
+            stale.get(5, TimeUnit.SECONDS);
+        } finally {
+            clients.shutdownNow();
+        }
+
+        eventCache.findEventByEventName("Event1");
+
+        verify(eventRepository, times(2)).findSummaryByEventName("Event1");
+        assertEquals(0, eventCache.collapsedLoads());
+    }
+
+    @Test
+    public void givenLoadFinishingHalfwayThroughEviction_whenFindEventByEventName_thenNextCallQueriesAgain() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        CountDownLatch evicting = new CountDownLatch(1);
+        CountDownLatch releaseEviction = new CountDownLatch(1);
+        given(eventRepository.findSummaryByEventName("Event1")).willAnswer(invocation -> {
+            loading.countDown();
+            releaseLoad.await();
+            return summary(1, "Event1", "Organizer1");
+        });
+        // An eviction by name drops the event, then scans the cached listings for it: holding up the scan
+        // stops the eviction halfway, after the key is gone and before it has finished.
+        given(eventRepository.findSummariesByOrganizer("Organizer1")).willReturn(new ArrayList<>(List.of(summary(1, "Event1", "Organizer1"))) {
+            @Override
+            public Iterator<EventSummary> iterator() {
+                evicting.countDown();
+                try {
+                    releaseEviction.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.iterator();
+            }
+        });
+        eventCache.findEventsByOrganizer("Organizer1");
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<EventSummary> stale = threads.submit(() -> eventCache.findEventByEventName("Event1"));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<?> eviction = threads.submit(() -> eventCache.evict("Event1"));
+            assertTrue(evicting.await(5, TimeUnit.SECONDS));
+            // The load puts the row it read before the write while the eviction is still running.
+            releaseLoad.countDown();
+            stale.get(5, TimeUnit.SECONDS);
+            releaseEviction.countDown();
+            eviction.get(5, TimeUnit.SECONDS);
+        } finally {
+            threads.shutdownNow();
+        }
+
+        eventCache.findEventByEventName("Event1");
+
+        verify(eventRepository, times(2)).findSummaryByEventName("Event1");
+    }
+
+    private void awaitCollapsedLoads(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (eventCache.collapsedLoads() < expected) {
+            assertTrue(System.nanoTime() < deadline, "Only " + eventCache.collapsedLoads() + " requests joined the load");
+            Thread.sleep(1);
+        }
+    }
+}
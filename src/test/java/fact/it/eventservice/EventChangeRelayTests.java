@@ -0,0 +1,179 @@
+package fact.it.eventservice;
+
+import fact.it.eventservice.changes.EventChangePublisher;
+import fact.it.eventservice.changes.EventChangeRelay;
+import fact.it.eventservice.changes.InProcessEventChangePublisher;
+import fact.it.eventservice.datasource.BackgroundConnectionBudget;
+import fact.it.eventservice.model.EventChange;
+import fact.it.eventservice.model.EventChangePosition;
+import fact.it.eventservice.repository.EventChangePositionRepository;
+import fact.it.eventservice.repository.EventChangeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class EventChangeRelayTests {
+
+    private final EventChangeRepository changeRepository = mock(EventChangeRepository.class);
+    private final EventChangePositionRepository positionRepository = mock(EventChangePositionRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final EventChangePosition position = new EventChangePosition(EventChangePosition.ID, 10);
+    private final List<EventChange> outbox = new ArrayList<>();
+    private final AtomicInteger reads = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        given(transactionManager.getTransaction(any())).willReturn(new SimpleTransactionStatus());
+        given(positionRepository.lock(anyInt())).willReturn(Optional.of(position));
+        // Serves the changes without an offset the way the outbox query does, in id order.
+        given(changeRepository.findUnrelayed(any(Pageable.class))).willAnswer(invocation -> {
+            reads.incrementAndGet();
+            Pageable page = invocation.getArgument(0);
+            List<EventChange> unrelayed = new ArrayList<>();
+            for (EventChange change : outbox) {
+                if (change.getOffset() == null && unrelayed.size() < page.getPageSize()) {
+                    unrelayed.add(change);
+                }
+            }
+            return unrelayed;
+        });
+        for (int i = 0; i < 5; i++) {
+            EventChange change = new EventChange();
+            change.setType(EventChange.CREATED);
+            change.setEventName("Event" + i);
+            outbox.add(change);
+        }
+    }
+
+    @Test
+    public void givenChanges_whenRelayBatch_thenNumberThemFromTheLastOffsetInBatches() throws InterruptedException {
+        List<List<EventChange>> published = new ArrayList<>();
+        EventChangeRelay relay = relay(batch -> published.add(new ArrayList<>(batch)), 2);
+
+        assertEquals(2, relay.relayBatch());
+        assertEquals(2, relay.relayBatch());
+        assertEquals(1, relay.relayBatch());
+        assertEquals(0, relay.relayBatch());
+
+        assertEquals(3, published.size());
+        assertEquals(List.of(2, 2, 1), List.of(published.get(0).size(), published.get(1).size(), published.get(2).size()));
+        for (int i = 0; i < outbox.size(); i++) {
+            assertEquals(11L + i, outbox.get(i).getOffset());
+        }
+        assertEquals(15, position.getLastOffset());
+    }
+
+    @Test
+    public void givenBlockedPublisher_whenRelaying_thenReadNoFurtherBatches() throws InterruptedException {
+        CountDownLatch publishing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<EventChange> published = new LinkedBlockingQueue<>();
+        EventChangeRelay relay = relay(batch -> {
+            publishing.countDown();
+            release.await();
+            published.addAll(batch);
+        }, 2);
+        relay.start();
+
+        assertTrue(publishing.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(1, reads.get());
+        assertTrue(published.isEmpty());
+
+        release.countDown();
+        for (int i = 0; i < outbox.size(); i++) {
+            assertEquals("Event" + i, published.poll(5, TimeUnit.SECONDS).getEventName());
+        }
+        relay.stop();
+    }
+
+    @Test
+    public void givenBackgroundConnectionsInUse_whenRelaying_thenWaitUntilOneIsFree() throws InterruptedException {
+        BackgroundConnectionBudget connections = new BackgroundConnectionBudget(1);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread archiver = new Thread(() -> connections.run(() -> {
+            holding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        archiver.start();
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+        BlockingQueue<EventChange> published = new LinkedBlockingQueue<>();
+        EventChangeRelay relay = relay(published::addAll, 10, connections);
+        relay.start();
+
+        Thread.sleep(200);
+        assertEquals(0, reads.get());
+
+        release.countDown();
+        assertEquals("Event0", published.poll(5, TimeUnit.SECONDS).getEventName());
+        relay.stop();
+        archiver.join();
+    }
+
+    @Test
+    public void givenSlowSubscriber_whenBufferIsFull_thenInProcessPublisherBlocks() throws InterruptedException {
+        InProcessEventChangePublisher publisher = new InProcessEventChangePublisher(2);
+        CountDownLatch release = new CountDownLatch(1);
+        List<EventChange> delivered = new ArrayList<>();
+        CountDownLatch allDelivered = new CountDownLatch(outbox.size());
+        publisher.subscribe(change -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.add(change);
+            allDelivered.countDown();
+        });
+
+        Thread relayThread = new Thread(() -> {
+            try {
+                publisher.publish(outbox);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        relayThread.start();
+        relayThread.join(200);
+        assertTrue(relayThread.isAlive());
+
+        release.countDown();
+        relayThread.join(5000);
+        assertTrue(allDelivered.await(5, TimeUnit.SECONDS));
+        assertEquals(outbox, delivered);
+        publisher.stop();
+    }
+
+    private EventChangeRelay relay(EventChangePublisher publisher, int batchSize) {
+        return relay(publisher, batchSize, new BackgroundConnectionBudget(1));
+    }
+
+    private EventChangeRelay relay(EventChangePublisher publisher, int batchSize, BackgroundConnectionBudget connections) {
+        return new EventChangeRelay(changeRepository, positionRepository, publisher, transactionManager,
+                connections, batchSize, Duration.ofMillis(100), Duration.ofDays(7));
+    }
+}
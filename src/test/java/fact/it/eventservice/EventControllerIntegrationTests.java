@@ -1,28 +1,42 @@
 package fact.it.eventservice;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.changes.EventChangeRelay;
+import fact.it.eventservice.controller.EventController;
 import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventChange;
+import fact.it.eventservice.model.EventChangePosition;
+import fact.it.eventservice.repository.EventChangePositionRepository;
 import fact.it.eventservice.repository.EventRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isA;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "events.cache.bus.single-instance=true")
 @AutoConfigureMockMvc
+@AutoConfigureMetrics
 public class EventControllerIntegrationTests {
 
     @Autowired
@@ -31,6 +45,15 @@ public class EventControllerIntegrationTests {
     @Autowired
     private EventRepository eventRepository;
 
+    @Autowired
+    private EventCache eventCache;
+
+    @Autowired
+    private EventChangeRelay eventChangeRelay;
+
+    @Autowired
+    private EventChangePositionRepository eventChangePositionRepository;
+
     private Event event1TestOrganizer1 = new Event("TestEvent1", "TestOrganizer1");
     private Event event2TestOrganizer1 = new Event("TestEvent2", "TestOrganizer1");
     private Event event3TestOrganizer2 = new Event("TestEvent3", "TestOrganizer2");
@@ -39,6 +62,7 @@ public class EventControllerIntegrationTests {
     @BeforeEach
     public void beforeAllTests(){
         eventRepository.deleteAll();
+        eventCache.evictAll();
         eventRepository.save(event1TestOrganizer1);
         eventRepository.save(event2TestOrganizer1);
         eventRepository.save(event3TestOrganizer2);
@@ -48,10 +72,10 @@ public class EventControllerIntegrationTests {
 
     @AfterEach
     public void afterAllTests(){
-        eventRepository.delete(event1TestOrganizer1);
-        eventRepository.delete(event2TestOrganizer1);
-        eventRepository.delete(event3TestOrganizer2);
-        eventRepository.delete(eventForDeleting);
+        eventRepository.deleteByEventName(event1TestOrganizer1.getEventName());
+        eventRepository.deleteByEventName(event2TestOrganizer1.getEventName());
+        eventRepository.deleteByEventName(event3TestOrganizer2.getEventName());
+        eventRepository.deleteByEventName(eventForDeleting.getEventName());
     }
 
     private ObjectMapper mapper = new ObjectMapper();
@@ -90,6 +114,137 @@ public class EventControllerIntegrationTests {
                 .andExpect(jsonPath("$[1].organizer", is("TestOrganizer1")));
     }
 
+    @Test
+    public void givenEvents_whenGetEventsWithLimit_thenReturnPagesWithCursor() throws Exception{
+        MvcResult firstPage = mockMvc.perform(get("/events").param("limit", "3"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent1")))
+                .andExpect(header().exists(EventController.NEXT_CURSOR_HEADER))
+                .andReturn();
+
+        mockMvc.perform(get("/events")
+                .param("limit", "3")
+                .param("cursor", firstPage.getResponse().getHeader(EventController.NEXT_CURSOR_HEADER)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName", is("EventDelete")))
+                .andExpect(header().doesNotExist(EventController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void givenEvents_whenGetEventsByOrganizerWithLimit_thenReturnPagesWithCursor() throws Exception{
+        MvcResult firstPage = mockMvc.perform(get("/events/organizer/{organizer}", "TestOrganizer1").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent1")))
+                .andReturn();
+
+        mockMvc.perform(get("/events/organizer/{organizer}", "TestOrganizer1")
+                .param("limit", "1")
+                .param("cursor", firstPage.getResponse().getHeader(EventController.NEXT_CURSOR_HEADER)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent2")));
+    }
+
+    @Test
+    public void givenInvalidCursor_whenGetEvents_thenStatusBadRequest() throws Exception{
+        mockMvc.perform(get("/events").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenScheduledEvents_whenGetEventsInRange_thenReturnPagesInStartTimeOrder() throws Exception{
+        schedule("TestEvent1", "2030-03-02T10:00:00Z");
+        schedule("TestEvent2", "2030-03-01T10:00:00Z");
+        schedule("TestEvent3", "2030-03-01T10:00:00Z");
+        schedule("EventDelete", "2030-04-01T10:00:00Z");
+
+        MvcResult firstPage = mockMvc.perform(get("/events")
+                .param("from", "2030-03-01T00:00:00Z")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent2")))
+                .andExpect(jsonPath("$[0].startTime", is("2030-03-01T10:00:00Z")))
+                .andExpect(jsonPath("$[0].status", is("SCHEDULED")))
+                .andExpect(jsonPath("$[1].eventName", is("TestEvent3")))
+                .andReturn();
+
+        mockMvc.perform(get("/events")
+                .param("from", "2030-03-01T00:00:00Z")
+                .param("limit", "2")
+                .param("cursor", firstPage.getResponse().getHeader(EventController.NEXT_CURSOR_HEADER)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent1")))
+                .andExpect(jsonPath("$[1].eventName", is("EventDelete")));
+    }
+
+    @Test
+    public void givenScheduledEvents_whenGetEventsInRangeWithTo_thenLeaveOutLaterEvents() throws Exception{
+        schedule("TestEvent1", "2030-03-02T10:00:00Z");
+        schedule("TestEvent2", "2030-03-01T10:00:00Z");
+
+        mockMvc.perform(get("/events")
+                .param("from", "2030-03-01T00:00:00Z")
+                .param("to", "2030-03-02T10:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent2")))
+                .andExpect(header().doesNotExist(EventController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void givenToWithoutFrom_whenGetEvents_thenStatusBadRequest() throws Exception{
+        mockMvc.perform(get("/events").param("to", "2030-03-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenEndBeforeStart_whenPostEvent_thenStatusBadRequest() throws Exception{
+        mockMvc.perform(post("/events")
+                .content("{\"eventName\":\"TestEvent5\",\"organizer\":\"TestOrganizer1\","
+                        + "\"startTime\":\"2030-03-01T12:00:00Z\",\"endTime\":\"2030-03-01T10:00:00Z\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenEvents_whenStreamEventsByOrganizer_thenReturnNdjson() throws Exception{
+        MvcResult result = mockMvc.perform(get("/events/organizer/{organizer}", "TestOrganizer1")
+                .accept(EventController.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(EventController.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals("TestEvent1", mapper.readValue(lines[0], Event.class).getEventName());
+        assertEquals("TestEvent2", mapper.readValue(lines[1], Event.class).getEventName());
+    }
+
+    @Test
+    public void givenRequests_whenScrapePrometheus_thenExposeLatencyAndPoolMetrics() throws Exception{
+        mockMvc.perform(get("/events/{eventName}", "TestEvent1"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("uri=\"/events/{eventName}\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending")))
+                .andExpect(content().string(containsString("hibernate_query_executions_total")))
+                .andExpect(content().string(containsString("cache_gets_total{application=\"event-service\",cache=\"eventsByName\"")))
+                .andExpect(content().string(containsString("jvm_gc_memory_allocated_bytes_total")));
+    }
+
     @Test
     public void whenPostEvent_thenReturnJsonEvent() throws Exception{
         Event event4TestOrganizer2 = new Event("TestEvent4", "TestOrganizer2");
@@ -117,8 +272,10 @@ public class EventControllerIntegrationTests {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
                 .andExpect(jsonPath("$.eventName", is("TestEvent1")))
-                .andExpect(jsonPath("$.organizer", is("TestOrganizer2")));
+                .andExpect(jsonPath("$.organizer", is("TestOrganizer2")))
+                .andExpect(jsonPath("$.version", is(1)));
     }
 
     @Test
@@ -139,4 +296,306 @@ public class EventControllerIntegrationTests {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    public void givenEvent_whenGetEventByEventName_thenReturnVersionAsETag() throws Exception {
+        mockMvc.perform(get("/events/{eventName}", "TestEvent1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(jsonPath("$.version", is(0)));
+    }
+
+    @Test
+    public void givenMatchingETag_whenPutEvent_thenUpdateAndReturnNextETag() throws Exception {
+        Event updatedEvent = new Event("TestEvent1", "TestOrganizer2");
+
+        mockMvc.perform(put("/events")
+                .header("If-Match", "\"0\"")
+                .content(mapper.writeValueAsString(updatedEvent))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.organizer", is("TestOrganizer2")))
+                .andExpect(jsonPath("$.version", is(1)));
+
+        assertEquals("TestOrganizer2", eventRepository.findEventByEventName("TestEvent1").getOrganizer());
+        assertEquals(1, eventRepository.findEventByEventName("TestEvent1").getVersion());
+    }
+
+    @Test
+    public void givenStaleETag_whenPutEvent_thenStatusPreconditionFailed() throws Exception {
+        Event updatedEvent = new Event("TestEvent1", "TestOrganizer2");
+
+        mockMvc.perform(put("/events")
+                .header("If-Match", "\"7\"")
+                .content(mapper.writeValueAsString(updatedEvent))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+
+        assertEquals("TestOrganizer1", eventRepository.findEventByEventName("TestEvent1").getOrganizer());
+    }
+
+    @Test
+    public void givenNoEvent_whenPutEvent_thenStatusNotFound() throws Exception {
+        Event updatedEvent = new Event("EventXXX", "OrganizerXXX");
+
+        mockMvc.perform(put("/events")
+                .header("If-Match", "\"0\"")
+                .content(mapper.writeValueAsString(updatedEvent))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void givenStaleETag_whenDeleteEvent_thenStatusPreconditionFailed() throws Exception {
+        mockMvc.perform(delete("/events/event/{eventName}", "EventDelete")
+                .header("If-Match", "\"3\""))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(delete("/events/event/{eventName}", "EventDelete")
+                .header("If-Match", "\"0\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void givenCachedOrganizer_whenPutEventMovesIt_thenPreviousOrganizerNoLongerListsIt() throws Exception {
+        mockMvc.perform(get("/events/organizer/{organizer}", "TestOrganizer1"))
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        mockMvc.perform(put("/events")
+                .content(mapper.writeValueAsString(new Event("TestEvent1", "TestOrganizer2")))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/events/organizer/{organizer}", "TestOrganizer1"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent2")));
+    }
+
+    @Test
+    public void givenUnchangedEvents_whenGetAllEventsWithETag_thenStatusNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/events"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/events").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void givenNewEvent_whenGetAllEventsWithOldETag_thenReturnListingWithNewETag() throws Exception {
+        String eTag = mockMvc.perform(get("/events")).andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(post("/events")
+                .content(mapper.writeValueAsString(new Event("TestEvent5", "TestOrganizer3")))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/events").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)))
+                .andExpect(jsonPath("$", hasSize(5)));
+    }
+
+    @Test
+    public void givenWriteForOtherOrganizer_whenGetOrganizerWithETag_thenStatusNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/events/organizer/{organizer}", "TestOrganizer1"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(post("/events")
+                .content(mapper.writeValueAsString(new Event("TestEvent5", "TestOrganizer3")))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/events/organizer/{organizer}", "TestOrganizer1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void givenUpdateWithUnknownPreviousOrganizer_whenGetOrganizerWithETag_thenReturnListing() throws Exception {
+        // A page is read straight from the repository, so no cached listing can tell the cache where TestEvent1 was.
+        String eTag = mockMvc.perform(get("/events/organizer/{organizer}", "TestOrganizer1").param("limit", "10"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put("/events")
+                .content(mapper.writeValueAsString(new Event("TestEvent1", "TestOrganizer2")))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/events/organizer/{organizer}", "TestOrganizer1").param("limit", "10").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    public void givenExactAndPartialMatches_whenSearch_thenReturnExactMatchesFirst() throws Exception {
+        eventRepository.save(new Event("TestEvent", "OrganizerSearch"));
+
+        mockMvc.perform(get("/events/search").param("q", "testevent"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent")))
+                .andExpect(jsonPath("$[1].eventName", is("TestEvent1")))
+                .andExpect(jsonPath("$[2].eventName", is("TestEvent2")))
+                .andExpect(jsonPath("$[3].eventName", is("TestEvent3")));
+    }
+
+    @Test
+    public void givenPartialOrganizer_whenSearch_thenReturnEventsOfMatchingOrganizers() throws Exception {
+        mockMvc.perform(get("/events/search").param("q", "ORGANIZER1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent1")))
+                .andExpect(jsonPath("$[1].eventName", is("TestEvent2")));
+    }
+
+    @Test
+    public void givenLimit_whenSearch_thenFollowCursorToNextPage() throws Exception {
+        eventRepository.save(new Event("TestEvent", "OrganizerSearch"));
+
+        MvcResult firstPage = mockMvc.perform(get("/events/search").param("q", "testevent").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent")))
+                .andExpect(jsonPath("$[1].eventName", is("TestEvent1")))
+                .andExpect(header().exists(EventController.NEXT_CURSOR_HEADER))
+                .andReturn();
+
+        mockMvc.perform(get("/events/search").param("q", "testevent").param("limit", "2")
+                .param("cursor", firstPage.getResponse().getHeader(EventController.NEXT_CURSOR_HEADER)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent2")))
+                .andExpect(jsonPath("$[1].eventName", is("TestEvent3")));
+    }
+
+    @Test
+    public void givenShortTerm_whenSearch_thenOnlyMatchPrefixes() throws Exception {
+        mockMvc.perform(get("/events/search").param("q", "ev"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName", is("EventDelete")));
+    }
+
+    @Test
+    public void givenWildcardTerm_whenSearch_thenMatchItLiterally() throws Exception {
+        mockMvc.perform(get("/events/search").param("q", "test%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    public void givenBlankTerm_whenSearch_thenStatusBadRequest() throws Exception {
+        mockMvc.perform(get("/events/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenWrites_whenGetChanges_thenReturnThemInOrder() throws Exception {
+        long since = relayedOffset();
+
+        mockMvc.perform(post("/events")
+                .content(mapper.writeValueAsString(new Event("EventChanged", "OrganizerChanges")))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/events")
+                .content(mapper.writeValueAsString(new Event("EventChanged", "OrganizerMoved")))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/events/event/{eventName}", "EventChanged"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/events/event/{eventName}", "EventChanged"))
+                .andExpect(status().isNotFound());
+        relayedOffset();
+
+        mockMvc.perform(asyncDispatch(changes(get("/events/changes").param("since", Long.toString(since)))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(EventController.NEXT_OFFSET_HEADER, Long.toString(since + 3)))
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].offset", is((int) since + 1)))
+                .andExpect(jsonPath("$[0].type", is(EventChange.CREATED)))
+                .andExpect(jsonPath("$[0].organizer", is("OrganizerChanges")))
+                .andExpect(jsonPath("$[0].version", is(0)))
+                .andExpect(jsonPath("$[1].type", is(EventChange.UPDATED)))
+                .andExpect(jsonPath("$[1].organizer", is("OrganizerMoved")))
+                .andExpect(jsonPath("$[1].version", is(1)))
+                .andExpect(jsonPath("$[2].type", is(EventChange.DELETED)))
+                .andExpect(jsonPath("$[2].eventName", is("EventChanged")));
+    }
+
+    @Test
+    public void givenLimit_whenGetChanges_thenFollowNextOffset() throws Exception {
+        long since = relayedOffset();
+        mockMvc.perform(post("/events/batch")
+                .content(mapper.writeValueAsString(List.of(new Event("EventChanged1", "OrganizerChanges"),
+                        new Event("EventChanged2", "OrganizerChanges"), new Event("EventChanged3", "OrganizerChanges"))))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        relayedOffset();
+
+        MvcResult firstPage = mockMvc.perform(asyncDispatch(changes(get("/events/changes").param("since", Long.toString(since)).param("limit", "2"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].eventName", is("EventChanged1")))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(changes(get("/events/changes").param("limit", "2")
+                .param("since", firstPage.getResponse().getHeader(EventController.NEXT_OFFSET_HEADER)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName", is("EventChanged3")))
+                .andExpect(jsonPath("$[0].type", is(EventChange.CREATED)));
+
+        for (int i = 1; i <= 3; i++) {
+            eventRepository.deleteByEventName("EventChanged" + i);
+        }
+    }
+
+    @Test
+    public void givenWait_whenGetChangesIsUpToDate_thenAnswerOnNextWrite() throws Exception {
+        long since = relayedOffset();
+
+        MvcResult waiting = changes(get("/events/changes").param("since", Long.toString(since)).param("wait", "10"));
+        mockMvc.perform(put("/events")
+                .content(mapper.writeValueAsString(new Event("TestEvent1", "TestOrganizer3")))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(asyncDispatch(waiting))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName", is("TestEvent1")))
+                .andExpect(jsonPath("$[0].organizer", is("TestOrganizer3")));
+    }
+
+    @Test
+    public void givenNegativeOffset_whenGetChanges_thenStatusBadRequest() throws Exception {
+        mockMvc.perform(get("/events/changes").param("since", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void schedule(String eventName, String startTime) {
+        Event event = eventRepository.findEventByEventName(eventName);
+        event.setStartTime(Instant.parse(startTime));
+        eventRepository.save(event);
+    }
+
+    // The changes endpoint always answers asynchronously, even when it has changes right away.
+    private MvcResult changes(MockHttpServletRequestBuilder changesRequest) throws Exception {
+        return mockMvc.perform(changesRequest)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    // Relays everything recorded so far and returns the last offset handed out.
+    private long relayedOffset() {
+        int relayed;
+        do {
+            relayed = eventChangeRelay.relayBatch();
+        } while (relayed > 0);
+        return eventChangePositionRepository.findById(EventChangePosition.ID).orElseThrow().getLastOffset();
+    }
 }
@@ -1,8 +1,13 @@
 package fact.it.eventservice;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import fact.it.eventservice.cache.EventCache;
 import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventStatus;
+import fact.it.eventservice.model.EventSummary;
+import fact.it.eventservice.repository.EventChangeRepository;
 import fact.it.eventservice.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -31,14 +36,25 @@ public class EventControllerUnitTests {
     @MockBean
     private EventRepository eventRepository;
 
+    @MockBean
+    private EventChangeRepository eventChangeRepository;
+
+    @Autowired
+    private EventCache eventCache;
+
     private ObjectMapper mapper = new ObjectMapper();
 
+    @BeforeEach
+    public void beforeAllTests(){
+        eventCache.evictAll();
+    }
+
 
     @Test
     public void whenGetAllEvents_thenReturnJsonEvent() throws Exception{
-        List<Event> allEvents = eventRepository.findAll();
+        List<EventSummary> allEvents = eventRepository.findAllSummaries();
 
-        given(eventRepository.findAll()).willReturn(allEvents);
+        given(eventRepository.findAllSummaries()).willReturn(allEvents);
 
         mockMvc.perform(get("/events"))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
@@ -49,9 +65,9 @@ public class EventControllerUnitTests {
 
     @Test
     public void givenEvent_whenGetEventByEventName_thenReturnJsonEvent() throws Exception {
-        Event event1 = new Event("Event1","Organizer1");
+        EventSummary event1 = new EventSummary(1,"Event1","Organizer1",0);
 
-        given(eventRepository.findEventByEventName("Event1")).willReturn(event1);
+        given(eventRepository.findSummaryByEventName("Event1")).willReturn(event1);
 
         mockMvc.perform(get("/events/{eventName}","Event1"))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
@@ -62,14 +78,14 @@ public class EventControllerUnitTests {
 
     @Test
     public void givenEvent_whenGetEventsByOrganizer_thenReturnJsonEvents() throws Exception {
-        Event event1Organizer1 = new Event("Event1","Organizer1");
-        Event event2Organizer1 = new Event("Event2","Organizer1");
+        EventSummary event1Organizer1 = new EventSummary(1,"Event1","Organizer1",0);
+        EventSummary event2Organizer1 = new EventSummary(2,"Event2","Organizer1",0);
 
-        List<Event> eventList = new ArrayList<>();
+        List<EventSummary> eventList = new ArrayList<>();
         eventList.add(event1Organizer1);
         eventList.add(event2Organizer1);
 
-        given(eventRepository.findEventsByOrganizer("Organizer1")).willReturn(eventList);
+        given(eventRepository.findSummariesByOrganizer("Organizer1")).willReturn(eventList);
 
         mockMvc.perform(get("/events/organizer/{organizer}","Organizer1"))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
@@ -96,9 +112,7 @@ public class EventControllerUnitTests {
 
     @Test
     public void givenEvent_whenPutEvent_thenReturnJsonEvent() throws Exception{
-        Event event1Organizer1 = new Event("Event1","Organizer1");
-
-        given(eventRepository.findEventByEventName("Event1")).willReturn(event1Organizer1);
+        given(eventRepository.updateReturningVersion("Event1","Organizer2",null,null,EventStatus.SCHEDULED,null)).willReturn(1);
 
         Event updatedEvent = new Event("Event1","Organizer2");
 
@@ -108,14 +122,14 @@ public class EventControllerUnitTests {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.eventName",is("Event1")))
-                .andExpect(jsonPath("$.organizer",is("Organizer2")));
+                .andExpect(jsonPath("$.organizer",is("Organizer2")))
+                .andExpect(jsonPath("$.version",is(1)));
     }
 
     @Test
     public void givenEvent_whenDeleteEvent_thenStatusOk() throws Exception{
-        Event eventToBeDeleted = new Event("EventDelete","OrganizerDelete");
-
-        given(eventRepository.findEventByEventName("EventDelete")).willReturn(eventToBeDeleted);
+        given(eventChangeRepository.recordDeleted("EventDelete")).willReturn(1);
+        given(eventRepository.deleteByEventName("EventDelete")).willReturn(1);
 
         mockMvc.perform(delete("/events/event/{eventName}","EventDelete")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -124,7 +138,7 @@ public class EventControllerUnitTests {
 
     @Test
     public void givenNoEvent_whenDeleteEvent_thenStatusNotFound() throws Exception{
-        given(eventRepository.findEventByEventName("EventXXX")).willReturn(null);
+        given(eventRepository.deleteByEventName("EventXXX")).willReturn(0);
 
         mockMvc.perform(delete("/events/event/{eventName}","EventXXX")
                 .contentType(MediaType.APPLICATION_JSON))
@@ -0,0 +1,236 @@
+package fact.it.eventservice;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumValueDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.EnumDescriptor;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+import com.google.protobuf.Timestamp;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventStatus;
+import fact.it.eventservice.model.EventSummary;
+import fact.it.eventservice.protobuf.EventProtobuf;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the hand-written codec against the protobuf runtime: what EventProtobuf writes is parsed as a
+ * DynamicMessage of the messages in src/main/proto/event.proto, and what the runtime writes is read back by
+ * EventProtobuf. There is no protoc in the build, so the descriptor is built here and checked against the
+ * field and enum declarations of the .proto file.
+ */
+public class EventProtobufConformanceTests {
+
+    private static final String PACKAGE = "fact.it.eventservice";
+    private static final FileDescriptor EVENT_PROTO = eventProto();
+    private static final Descriptor EVENT = EVENT_PROTO.findMessageTypeByName("Event");
+    private static final Descriptor EVENT_LIST = EVENT_PROTO.findMessageTypeByName("EventList");
+    private static final EnumDescriptor EVENT_STATUS = EVENT_PROTO.findEnumTypeByName("EventStatus");
+
+    @Test
+    public void givenEventProtoFile_whenCompareWithDescriptor_thenDeclareTheSameFields() throws Exception {
+        String proto = new String(Files.readAllBytes(Paths.get("src/main/proto/event.proto")), StandardCharsets.UTF_8);
+
+        for (Descriptor message : EVENT_PROTO.getMessageTypes()) {
+            for (FieldDescriptor field : message.getFields()) {
+                String declaration = (field.isRepeated() ? "repeated " : "") + typeName(field) + " " + field.getName()
+                        + " = " + field.getNumber() + ";";
+                assertTrue(declared(proto, declaration), declaration + " is not in event.proto");
+            }
+        }
+        for (EnumValueDescriptor value : EVENT_STATUS.getValues()) {
+            String declaration = value.getName() + " = " + value.getNumber() + ";";
+            assertTrue(declared(proto, declaration), declaration + " is not in event.proto");
+        }
+    }
+
+    @Test
+    public void givenEveryStatus_whenWriteEvent_thenRuntimeParsesSameFields() throws Exception {
+        for (EventStatus status : EventStatus.values()) {
+            Event event = new Event("TestEvent1", "TestOrganizer1",
+                    Instant.parse("2030-03-01T18:30:00.000000123Z"), Instant.parse("1969-12-31T23:59:59.5Z"));
+            event.setId(42);
+            event.setVersion(3);
+            event.setStatus(status);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            EventProtobuf.writeEvent(event, body);
+
+            DynamicMessage message = DynamicMessage.parseFrom(EVENT, body.toByteArray());
+
+            assertTrue(message.getUnknownFields().asMap().isEmpty());
+            assertEquals(42, message.getField(EVENT.findFieldByName("id")));
+            assertEquals("TestEvent1", message.getField(EVENT.findFieldByName("event_name")));
+            assertEquals("TestOrganizer1", message.getField(EVENT.findFieldByName("organizer")));
+            assertEquals(3, message.getField(EVENT.findFieldByName("version")));
+            assertEquals(status.name(), ((EnumValueDescriptor) message.getField(EVENT.findFieldByName("status"))).getName());
+            assertEquals(event.getStartTime(), instant(timestamp(message, "start_time")));
+            assertEquals(event.getEndTime(), instant(timestamp(message, "end_time")));
+        }
+    }
+
+    @Test
+    public void givenSummaries_whenWriteSummaryList_thenRuntimeParsesEventList() throws Exception {
+        List<EventSummary> summaries = List.of(
+                new EventSummary(1, "TestEvent1", "TestOrganizer1", 0,
+                        Instant.ofEpochSecond(1_900_000_000L), null, EventStatus.CANCELLED),
+                new EventSummary(2, "TestEvent2", "TestOrganizer1", 5));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        EventProtobuf.writeSummaryList(summaries, body);
+
+        DynamicMessage list = DynamicMessage.parseFrom(EVENT_LIST, body.toByteArray());
+
+        FieldDescriptor events = EVENT_LIST.findFieldByName("events");
+        assertEquals(2, list.getRepeatedFieldCount(events));
+        DynamicMessage cancelled = (DynamicMessage) list.getRepeatedField(events, 0);
+        assertEquals("TestEvent1", cancelled.getField(EVENT.findFieldByName("event_name")));
+        assertEquals(0, cancelled.getField(EVENT.findFieldByName("version")));
+        assertEquals("CANCELLED", ((EnumValueDescriptor) cancelled.getField(EVENT.findFieldByName("status"))).getName());
+        Timestamp start = timestamp(cancelled, "start_time");
+        assertEquals(1_900_000_000L, start.getSeconds());
+        assertEquals(0, start.getNanos());
+        assertFalse(cancelled.hasField(EVENT.findFieldByName("end_time")));
+        DynamicMessage scheduled = (DynamicMessage) list.getRepeatedField(events, 1);
+        assertEquals(5, scheduled.getField(EVENT.findFieldByName("version")));
+        assertEquals("SCHEDULED", ((EnumValueDescriptor) scheduled.getField(EVENT.findFieldByName("status"))).getName());
+    }
+
+    @Test
+    public void givenEventFromRuntime_whenReadEvent_thenKeepFields() throws Exception {
+        for (EventStatus status : EventStatus.values()) {
+            Instant start = Instant.parse("2030-03-01T18:30:00.25Z");
+            Instant end = Instant.parse("1969-12-31T23:00:00Z");
+            byte[] body = DynamicMessage.newBuilder(EVENT)
+                    .setField(EVENT.findFieldByName("id"), 7)
+                    .setField(EVENT.findFieldByName("event_name"), "TestEvent1")
+                    .setField(EVENT.findFieldByName("organizer"), "TestOrganizer1")
+                    .setField(EVENT.findFieldByName("version"), 2)
+                    .setField(EVENT.findFieldByName("start_time"), timestamp(start))
+                    .setField(EVENT.findFieldByName("end_time"), timestamp(end))
+                    .setField(EVENT.findFieldByName("status"), EVENT_STATUS.findValueByName(status.name()))
+                    .build()
+                    .toByteArray();
+
+            Event event = EventProtobuf.readEvent(new ByteArrayInputStream(body));
+
+            assertEquals(7, event.getId());
+            assertEquals("TestEvent1", event.getEventName());
+            assertEquals("TestOrganizer1", event.getOrganizer());
+            assertEquals(2, event.getVersion());
+            assertEquals(start, event.getStartTime());
+            assertEquals(end, event.getEndTime());
+            assertEquals(status, event.getStatus());
+        }
+    }
+
+    @Test
+    public void givenUnspecifiedStatusFromRuntime_whenReadEvent_thenScheduledWithoutTimes() throws Exception {
+        byte[] body = DynamicMessage.newBuilder(EVENT)
+                .setField(EVENT.findFieldByName("event_name"), "TestEvent1")
+                .setField(EVENT.findFieldByName("status"), EVENT_STATUS.findValueByNumber(0))
+                .build()
+                .toByteArray();
+
+        Event event = EventProtobuf.readEvent(new ByteArrayInputStream(body));
+
+        assertEquals(EventStatus.SCHEDULED, event.getStatus());
+        assertNull(event.getStartTime());
+        assertNull(event.getOrganizer());
+    }
+
+    private static Timestamp timestamp(DynamicMessage event, String field) throws Exception {
+        return Timestamp.parseFrom(((Message) event.getField(EVENT.findFieldByName(field))).toByteString());
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return Timestamp.newBuilder().setSeconds(instant.getEpochSecond()).setNanos(instant.getNano()).build();
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+    }
+
+    private static boolean declared(String proto, String declaration) {
+        return Pattern.compile("(?m)^\\s*" + Pattern.quote(declaration)).matcher(proto).find();
+    }
+
+    private static String typeName(FieldDescriptor field) {
+        switch (field.getJavaType()) {
+            case MESSAGE:
+                return field.getMessageType().getFile() == EVENT_PROTO
+                        ? field.getMessageType().getName() : field.getMessageType().getFullName();
+            case ENUM:
+                return field.getEnumType().getName();
+            default:
+                return field.getType().name().toLowerCase();
+        }
+    }
+
+    private static FileDescriptor eventProto() {
+        FileDescriptorProto proto = FileDescriptorProto.newBuilder()
+                .setName("event.proto")
+                .setPackage(PACKAGE)
+                .setSyntax("proto3")
+                .addDependency(Timestamp.getDescriptor().getFile().getName())
+                .addMessageType(DescriptorProto.newBuilder()
+                        .setName("Event")
+                        .addField(field("id", 1, FieldDescriptorProto.Type.TYPE_INT32, null))
+                        .addField(field("event_name", 2, FieldDescriptorProto.Type.TYPE_STRING, null))
+                        .addField(field("organizer", 3, FieldDescriptorProto.Type.TYPE_STRING, null))
+                        .addField(field("version", 4, FieldDescriptorProto.Type.TYPE_INT32, null))
+                        .addField(field("start_time", 5, FieldDescriptorProto.Type.TYPE_MESSAGE, ".google.protobuf.Timestamp"))
+                        .addField(field("end_time", 6, FieldDescriptorProto.Type.TYPE_MESSAGE, ".google.protobuf.Timestamp"))
+                        .addField(field("status", 7, FieldDescriptorProto.Type.TYPE_ENUM, "." + PACKAGE + ".EventStatus")))
+                .addEnumType(EnumDescriptorProto.newBuilder()
+                        .setName("EventStatus")
+                        .addValue(value("EVENT_STATUS_UNSPECIFIED", 0))
+                        .addValue(value("SCHEDULED", 1))
+                        .addValue(value("POSTPONED", 2))
+                        .addValue(value("CANCELLED", 3)))
+                .addMessageType(DescriptorProto.newBuilder()
+                        .setName("EventList")
+                        .addField(field("events", 1, FieldDescriptorProto.Type.TYPE_MESSAGE, "." + PACKAGE + ".Event")
+                                .setLabel(FieldDescriptorProto.Label.LABEL_REPEATED)))
+                .build();
+        try {
+            return FileDescriptor.buildFrom(proto, new FileDescriptor[]{Timestamp.getDescriptor().getFile()});
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static FieldDescriptorProto.Builder field(String name, int number, FieldDescriptorProto.Type type, String typeName) {
+        FieldDescriptorProto.Builder field = FieldDescriptorProto.newBuilder()
+                .setName(name)
+                .setNumber(number)
+                .setType(type)
+                .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL);
+        if (typeName != null) {
+            field.setTypeName(typeName);
+        }
+        return field;
+    }
+
+    private static EnumValueDescriptorProto.Builder value(String name, int number) {
+        return EnumValueDescriptorProto.newBuilder().setName(name).setNumber(number);
+    }
+}
@@ -0,0 +1,104 @@
+package fact.it.eventservice;
+
+import fact.it.eventservice.cache.EventInvalidation;
+import fact.it.eventservice.cache.InMemoryEventInvalidationBus;
+import fact.it.eventservice.model.EventSummary;
+import fact.it.eventservice.repository.EventRepository;
+import fact.it.eventservice.search.EventSearchHit;
+import fact.it.eventservice.search.EventSearchIndex;
+import fact.it.eventservice.search.InMemoryEventSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class InMemoryEventSearchIndexTests {
+
+    private EventRepository eventRepository;
+    private InMemoryEventInvalidationBus bus;
+    private InMemoryEventSearchIndex index;
+
+    @BeforeEach
+    public void beforeAllTests(){
+        eventRepository = mock(EventRepository.class);
+        bus = new InMemoryEventInvalidationBus();
+        index = new InMemoryEventSearchIndex(eventRepository, mock(PlatformTransactionManager.class), bus);
+        given(eventRepository.streamSummaries()).willAnswer(invocation -> Stream.of(
+                summary(1, "Jazz Night", "Blue Note"),
+                summary(2, "Jazz", "Jazz Club"),
+                summary(3, "Rock Night", "Arena"),
+                summary(4, "Late Jazz Session", "Blue Note")));
+        index.rebuild();
+    }
+
+    private static EventSummary summary(int id, String eventName, String organizer){
+        return new EventSummary(id, eventName, organizer, 0);
+    }
+
+    private List<String> search(String query){
+        return eventNames(index.search(query, EventSearchIndex.EXACT, 0, 10));
+    }
+
+    private static List<String> eventNames(List<EventSearchHit> hits){
+        return hits.stream().map(hit -> hit.getEvent().getEventName()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void givenExactAndPartialMatches_whenSearch_thenRankExactMatchesFirst(){
+        assertEquals(List.of("Jazz", "Jazz Night", "Late Jazz Session"), search("JAZZ"));
+    }
+
+    @Test
+    public void givenOrganizerTerm_whenSearch_thenMatchOrganizers(){
+        assertEquals(List.of("Jazz Night", "Late Jazz Session"), search("blue note"));
+        assertEquals(List.of("Rock Night"), search("ren"));
+    }
+
+    @Test
+    public void givenShortTerm_whenSearch_thenOnlyMatchPrefixes(){
+        assertEquals(List.of("Jazz Night", "Late Jazz Session"), search("bl"));
+        assertEquals(List.of(), search("ht"));
+    }
+
+    @Test
+    public void givenLimit_whenSearchFromLastHit_thenContinueWithNextRank(){
+        List<EventSearchHit> firstPage = index.search("jazz", EventSearchIndex.EXACT, 0, 2);
+        EventSearchHit last = firstPage.get(1);
+        List<EventSearchHit> secondPage = index.search("jazz", last.getRank(), last.getEvent().getId(), 2);
+
+        assertEquals(List.of("Jazz", "Jazz Night"), eventNames(firstPage));
+        assertEquals(EventSearchIndex.PARTIAL, last.getRank());
+        assertEquals(List.of("Late Jazz Session"), eventNames(secondPage));
+    }
+
+    @Test
+    public void givenInvalidation_whenSearch_thenReturnEventsAsTheyAreNow(){
+        List<EventSummary> current = new ArrayList<>();
+        current.add(summary(3, "Rock Night", "Jazz Club"));
+        current.add(summary(5, "Jazz Brunch", "Cafe"));
+        given(eventRepository.findSummariesByEventNames(anyCollection())).willReturn(current);
+
+        bus.publish(new EventInvalidation("other", List.of("Rock Night", "Jazz Brunch", "Late Jazz Session"), List.of()));
+
+        assertEquals(List.of("Jazz", "Jazz Night", "Rock Night", "Jazz Brunch"), search("jazz"));
+        assertEquals(List.of(), search("arena"));
+    }
+
+    @Test
+    public void givenFlushAll_whenSearch_thenRebuildFromTable(){
+        given(eventRepository.streamSummaries()).willAnswer(invocation -> Stream.of(summary(7, "Jazz Picnic", "Park")));
+
+        bus.publish(EventInvalidation.flushAll("other"));
+
+        assertEquals(List.of("Jazz Picnic"), search("jazz"));
+    }
+}
@@ -0,0 +1,159 @@
+package fact.it.eventservice;
+
+import fact.it.eventservice.limit.ClientRateLimiter;
+import fact.it.eventservice.limit.EndpointLimit;
+import fact.it.eventservice.limit.GradientConcurrencyLimit;
+import fact.it.eventservice.limit.LoadSheddingFilter;
+import fact.it.eventservice.limit.TokenBucket;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoadSheddingTests {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void givenEmptyBucket_whenTryAcquire_thenReturnTimeUntilNextToken(){
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(100 * MILLI, bucket.tryAcquire(0));
+        assertEquals(50 * MILLI, bucket.tryAcquire(50 * MILLI));
+        assertEquals(0, bucket.tryAcquire(100 * MILLI));
+    }
+
+    @Test
+    public void givenIdleBucket_whenTryAcquire_thenRefillNoMoreThanBurst(){
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+
+        long later = TimeUnit.SECONDS.toNanos(60);
+        assertEquals(0, bucket.tryAcquire(later));
+        assertEquals(0, bucket.tryAcquire(later));
+        assertTrue(bucket.tryAcquire(later) > 0);
+    }
+
+    @Test
+    public void givenSaturatedLimitWithSteadyLatency_whenRelease_thenLimitGrows(){
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 100, 1.5);
+
+        for (int i = 0; i < 100; i++) {
+            saturateAndRelease(limit, 5 * MILLI);
+        }
+
+        assertTrue(limit.getLimit() > 10, "limit " + limit.getLimit());
+    }
+
+    @Test
+    public void givenRisingLatency_whenRelease_thenLimitShrinks(){
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 1, 20, 1.5);
+        for (int i = 0; i < 10; i++) {
+            saturateAndRelease(limit, 5 * MILLI);
+        }
+        int beforeOverload = limit.getLimit();
+
+        for (int i = 0; i < 3; i++) {
+            saturateAndRelease(limit, 50 * MILLI);
+        }
+
+        assertTrue(limit.getLimit() < beforeOverload / 2, "limit " + limit.getLimit() + " before " + beforeOverload);
+    }
+
+    @Test
+    public void givenIdleLimit_whenRelease_thenLimitStays(){
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 100, 1.5);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(5 * MILLI);
+        }
+
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    public void givenClientOverItsRate_whenFilter_thenStatusTooManyRequestsWithRetryAfter() throws Exception {
+        LoadSheddingFilter filter = filter(new ClientRateLimiter(1, 1, 100), null);
+
+        assertEquals(200, perform(filter, "10.0.0.1", new MockFilterChain()).getStatus());
+        MockHttpServletResponse limited = perform(filter, "10.0.0.1", new MockFilterChain());
+        assertEquals(429, limited.getStatus());
+        assertEquals("1", limited.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, perform(filter, "10.0.0.2", new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    public void givenLimitReached_whenFilter_thenStatusServiceUnavailableUntilReleased() throws Exception {
+        GradientConcurrencyLimit concurrencyLimit = new GradientConcurrencyLimit(1, 1, 1, 1.5);
+        LoadSheddingFilter filter = filter(null, concurrencyLimit);
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+        // The second request arrives while the first one still holds the only permit.
+        HttpServlet holding = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                try {
+                    nested[0] = perform(filter, "10.0.0.2", new MockFilterChain());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        assertEquals(200, perform(filter, "10.0.0.1", new MockFilterChain(holding)).getStatus());
+
+        assertEquals(503, nested[0].getStatus());
+        assertEquals("2", nested[0].getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(0, concurrencyLimit.getInFlight());
+        assertEquals(200, perform(filter, "10.0.0.2", new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    public void givenUnmatchedPath_whenFilter_thenPassThrough() throws Exception {
+        LoadSheddingFilter filter = filter(new ClientRateLimiter(1, 1, 100), null);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/health");
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    private static LoadSheddingFilter filter(ClientRateLimiter rateLimiter, GradientConcurrencyLimit concurrencyLimit){
+        return new LoadSheddingFilter(List.of(new EndpointLimit("reads", Set.of("GET"), "/events/**",
+                rateLimiter, concurrencyLimit)), Duration.ofSeconds(2));
+    }
+
+    private static MockHttpServletResponse perform(LoadSheddingFilter filter, String client, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/events/Event1");
+        request.setRemoteAddr(client);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    // Fills the limit so the samples count, then releases one permit with the given latency.
+    private static void saturateAndRelease(GradientConcurrencyLimit limit, long rttNanos){
+        int acquired = 0;
+        while (limit.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limit.release(rttNanos);
+        }
+    }
+}
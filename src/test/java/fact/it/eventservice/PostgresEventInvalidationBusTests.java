@@ -0,0 +1,99 @@
+package fact.it.eventservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.cache.EventInvalidation;
+import fact.it.eventservice.cache.PostgresEventInvalidationBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest(properties = "events.cache.bus.type=postgres")
+public class PostgresEventInvalidationBusTests {
+
+    @Autowired
+    private EventCache eventCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private PostgresEventInvalidationBus otherReplica;
+    private BlockingQueue<EventInvalidation> received = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    public void beforeAllTests() throws InterruptedException{
+        otherReplica = new PostgresEventInvalidationBus(jdbcTemplate, dataSourceProperties, objectMapper,
+                "event_invalidation", Duration.ofMillis(50), Duration.ofMillis(100));
+        otherReplica.subscribe(received::add);
+        otherReplica.start();
+        // The first message after connecting is the flush that guards against missed notifications.
+        assertTrue(received.poll(5, TimeUnit.SECONDS).isFlushAll());
+    }
+
+    @AfterEach
+    public void afterAllTests() throws InterruptedException{
+        otherReplica.stop();
+    }
+
+    @Test
+    public void givenOtherReplica_whenEvict_thenOtherReplicaReceivesKeys() throws InterruptedException{
+        eventCache.evict("TestEvent1", "TestOrganizer1", "TestOrganizer2");
+
+        EventInvalidation invalidation = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(invalidation);
+        assertEquals(List.of("TestEvent1"), invalidation.getEventNames());
+        assertEquals(List.of("TestOrganizer1", "TestOrganizer2"), invalidation.getOrganizers());
+    }
+
+    @Test
+    public void givenDroppedListenerConnection_whenReconnected_thenFlushAll() throws InterruptedException{
+        jdbcTemplate.queryForList("select pg_terminate_backend(pid) from pg_stat_activity where application_name = 'event-invalidation-listener'");
+
+        EventInvalidation invalidation = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(invalidation);
+        assertTrue(invalidation.isFlushAll());
+    }
+
+    @Test
+    public void givenFailingNotify_whenPublish_thenFlushLocallyInsteadOfThrowing(){
+        JdbcTemplate failing = mock(JdbcTemplate.class);
+        given(failing.query(anyString(), any(ResultSetExtractor.class), any(), any()))
+                .willThrow(new DataAccessResourceFailureException("Connection refused"));
+        PostgresEventInvalidationBus bus = new PostgresEventInvalidationBus(failing, dataSourceProperties, objectMapper,
+                "event_invalidation", Duration.ofMillis(50), Duration.ofMillis(100));
+        List<EventInvalidation> delivered = new ArrayList<>();
+        bus.subscribe(delivered::add);
+
+        bus.publish(new EventInvalidation("origin", List.of("TestEvent1"), List.of("TestOrganizer1")));
+
+        assertEquals(1, delivered.size());
+        assertTrue(delivered.get(0).isFlushAll());
+    }
+}
@@ -0,0 +1,201 @@
+package fact.it.eventservice;
+
+import com.zaxxer.hikari.HikariDataSource;
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.datasource.ReadWriteRoutingDataSource;
+import fact.it.eventservice.datasource.ReadYourWritesFilter;
+import fact.it.eventservice.datasource.ReplicaPool;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and a replica. They are never in sync, so every
+ * response shows which of the two served it.
+ */
+@SpringBootTest(properties = {
+        "events.datasource.replica-urls=" + ReadReplicaRoutingTests.REPLICA_URL,
+        "events.datasource.health-check-interval=1h",
+        "events.cache.bus.single-instance=true",
+        "spring.datasource.hikari.maximum-pool-size=3",
+        "events.datasource.replica-hikari.minimum-idle=1"})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class ReadReplicaRoutingTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:replica-schema.sql'";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventCache eventCache;
+
+    @Autowired
+    private ReplicaPool replicaPool;
+
+    @Autowired
+    private ReadWriteRoutingDataSource readWriteRoutingDataSource;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    public void beforeAllTests(){
+        eventRepository.deleteAll();
+        eventCache.evictAll();
+        eventRepository.save(new Event("PrimaryEvent", "PrimaryOrganizer"));
+        replica.update("delete from event");
+        replica.update("insert into event (id, event_name, organizer, version) values (1000, 'ReplicaEvent', 'ReplicaOrganizer', 0)");
+    }
+
+    @AfterEach
+    public void afterAllTests(){
+        replicaPool.checkHealth();
+    }
+
+    @Test
+    public void givenHikariProperties_whenReplicasConfigured_thenPrimaryPoolUsesThem() throws Exception {
+        HikariDataSource primary = readWriteRoutingDataSource.unwrap(HikariDataSource.class);
+
+        assertEquals(3, primary.getMaximumPoolSize());
+        assertEquals("primary", primary.getPoolName());
+    }
+
+    @Test
+    public void givenHikariProperties_whenReplicasConfigured_thenReplicaPoolsUseThem() {
+        HikariDataSource replica = (HikariDataSource) replicaPool.next().getDataSource();
+
+        assertEquals("replica-0", replica.getPoolName());
+        assertEquals(3, replica.getMaximumPoolSize());
+        assertEquals(1, replica.getMinimumIdle());
+        assertEquals(2000, replica.getConnectionTimeout());
+    }
+
+    @Test
+    public void givenReplica_whenGetEvents_thenReadFromReplica() throws Exception {
+        mockMvc.perform(get("/events"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventName", is("ReplicaEvent")))
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    public void givenReplica_whenGetEventByName_thenLoadCacheFromPrimary() throws Exception {
+        mockMvc.perform(get("/events/{eventName}", "PrimaryEvent"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.organizer", is("PrimaryOrganizer")));
+    }
+
+    @Test
+    public void whenPostEvent_thenWriteToPrimaryAndStickToIt() throws Exception {
+        mockMvc.perform(post("/events")
+                .content("{\"eventName\":\"NewEvent\",\"organizer\":\"NewOrganizer\"}")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE));
+
+        assertTrue(eventRepository.existsByEventName("NewEvent"));
+        assertEquals(0, replica.queryForObject("select count(*) from event where event_name = 'NewEvent'", Integer.class));
+    }
+
+    @Test
+    public void givenRecentWriteCookie_whenGetEvents_thenReadFromPrimary() throws Exception {
+        Cookie recentWrite = new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(System.currentTimeMillis() + 5000));
+
+        mockMvc.perform(get("/events").cookie(recentWrite))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].eventName", is("PrimaryEvent")))
+                .andExpect(header().exists("ETag"));
+    }
+
+    @Test
+    public void givenExpiredWriteCookie_whenGetEvents_thenReadFromReplica() throws Exception {
+        Cookie oldWrite = new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(System.currentTimeMillis() - 1));
+
+        mockMvc.perform(get("/events").cookie(oldWrite))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].eventName", is("ReplicaEvent")));
+    }
+
+    @Test
+    public void givenEjectedReplica_whenGetEvents_thenReadFromPrimaryUntilHealthy() throws Exception {
+        replicaPool.eject(replicaPool.next(), new SQLException("Replica down"));
+
+        mockMvc.perform(get("/events"))
+                .andExpect(jsonPath("$[0].eventName", is("PrimaryEvent")));
+
+        replicaPool.checkHealth();
+
+        mockMvc.perform(get("/events"))
+                .andExpect(jsonPath("$[0].eventName", is("ReplicaEvent")));
+    }
+
+    @Test
+    public void givenUnreachableReplica_whenReadOnlyConnection_thenEjectItAndUseNextOne() throws Exception {
+        DataSource unreachable = mock(DataSource.class);
+        given(unreachable.getConnection()).willThrow(new SQLException("Connection refused"));
+        DataSource primary = new DriverManagerDataSource("jdbc:h2:mem:events", "sa", "");
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("unreachable", unreachable);
+        replicas.put("replica", new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        try (ReplicaPool pool = new ReplicaPool(replicas, Duration.ofHours(1));
+             ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, pool)) {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            try (Connection first = routing.getConnection(); Connection second = routing.getConnection()) {
+                assertEquals("jdbc:h2:mem:replica", first.getMetaData().getURL());
+                assertEquals("jdbc:h2:mem:replica", second.getMetaData().getURL());
+            } finally {
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            }
+            assertEquals(1, pool.healthyReplicas());
+        }
+    }
+
+    @Test
+    public void givenNoHealthyReplica_whenNext_thenReturnNull() throws Exception {
+        DataSource unreachable = mock(DataSource.class);
+        given(unreachable.getConnection()).willThrow(new SQLException("Connection refused"));
+        try (ReplicaPool pool = new ReplicaPool(Map.of("unreachable", unreachable), Duration.ofHours(1))) {
+            pool.checkHealth();
+
+            assertNull(pool.next());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package fact.it.eventservice;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedOutputStream;
+import fact.it.eventservice.cache.EventCache;
+import fact.it.eventservice.controller.EventController;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.model.EventStatus;
+import fact.it.eventservice.protobuf.EventProtobuf;
+import fact.it.eventservice.repository.EventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class WireFormatTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventCache eventCache;
+
+    private ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+    private ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    @BeforeEach
+    public void beforeAllTests(){
+        eventRepository.deleteAllInBatch();
+        eventCache.evictAll();
+        eventRepository.save(new Event("TestEvent1", "TestOrganizer1"));
+        eventRepository.save(new Event("TestEvent2", "TestOrganizer1"));
+    }
+
+    @AfterEach
+    public void afterAllTests(){
+        eventRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void givenAcceptProtobuf_whenGetEventsByOrganizer_thenReturnEventList() throws Exception{
+        byte[] body = mockMvc.perform(get("/events/organizer/{organizer}", "TestOrganizer1")
+                .accept(EventController.APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(EventController.APPLICATION_PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Iterator<Event> events = EventProtobuf.readEventList(new ByteArrayInputStream(body));
+        Event first = events.next();
+        assertEquals("TestEvent1", first.getEventName());
+        assertEquals("TestOrganizer1", first.getOrganizer());
+        assertEquals(eventRepository.findEventByEventName("TestEvent1").getId(), first.getId());
+        assertEquals("TestEvent2", events.next().getEventName());
+        assertFalse(events.hasNext());
+    }
+
+    @Test
+    public void givenAcceptSmile_whenGetAllEvents_thenReturnSmileListing() throws Exception{
+        byte[] body = mockMvc.perform(get("/events")
+                .accept(EventController.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(EventController.APPLICATION_SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode events = smileMapper.readTree(body);
+        assertEquals(2, events.size());
+        assertEquals("TestEvent1", events.get(0).get("eventName").asText());
+    }
+
+    @Test
+    public void givenCborEvent_whenPostEvent_thenStoreAndReturnCbor() throws Exception{
+        byte[] body = mockMvc.perform(post("/events")
+                .content(cborMapper.writeValueAsBytes(new Event("TestEvent3", "TestOrganizer2")))
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals("TestOrganizer2", cborMapper.readTree(body).get("organizer").asText());
+        assertNotNull(eventRepository.findEventByEventName("TestEvent3"));
+    }
+
+    @Test
+    public void givenProtobufEvent_whenPostEvent_thenStoreIt() throws Exception{
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        EventProtobuf.writeEvent(new Event("TestEvent3", "TestOrganizer2"), body);
+
+        mockMvc.perform(post("/events")
+                .content(body.toByteArray())
+                .contentType(EventController.APPLICATION_PROTOBUF)
+                .accept(EventController.APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(EventController.APPLICATION_PROTOBUF));
+
+        assertEquals("TestOrganizer2", eventRepository.findEventByEventName("TestEvent3").getOrganizer());
+    }
+
+    @Test
+    public void givenProtobufEventList_whenPostBatch_thenStoreValidEvents() throws Exception{
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("BatchEvent1", "TestOrganizer2"));
+        events.add(new Event("TestEvent1", "TestOrganizer2"));
+        events.add(new Event(null, "TestOrganizer2"));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        EventProtobuf.writeEventList(events, body);
+
+        mockMvc.perform(post("/events/batch")
+                .content(body.toByteArray())
+                .contentType(EventController.APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"accepted\":1,\"failed\":2}"));
+
+        assertNotNull(eventRepository.findEventByEventName("BatchEvent1"));
+    }
+
+    @Test
+    public void givenSmileArray_whenPostBatch_thenStoreAllEvents() throws Exception{
+        List<Event> events = List.of(new Event("BatchEvent1", "TestOrganizer2"), new Event("BatchEvent2", "TestOrganizer2"));
+
+        mockMvc.perform(post("/events/batch")
+                .content(smileMapper.writeValueAsBytes(events))
+                .contentType(EventController.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"accepted\":2,\"failed\":0}"));
+
+        assertEquals(2, eventRepository.findEventsByOrganizer("TestOrganizer2").size());
+    }
+
+    @Test
+    public void givenMalformedProtobuf_whenPostBatch_thenStatusBadRequest() throws Exception{
+        // An embedded message that claims more bytes than follow.
+        mockMvc.perform(post("/events/batch")
+                .content(new byte[]{10, 50, 18, 3})
+                .contentType(EventController.APPLICATION_PROTOBUF))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenUnknownAndMissingFields_whenReadEvent_thenSkipThemAndLeaveStringsNull() throws Exception{
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(body);
+        output.writeString(15, "added in a later version");
+        output.writeInt32(1, 7);
+        output.writeString(3, "TestOrganizer1");
+        output.flush();
+
+        Event event = EventProtobuf.readEvent(new ByteArrayInputStream(body.toByteArray()));
+
+        assertEquals(7, event.getId());
+        assertNull(event.getEventName());
+        assertEquals("TestOrganizer1", event.getOrganizer());
+        assertEquals(0, event.getVersion());
+    }
+
+    @Test
+    public void givenScheduledEvent_whenWriteAndReadEvent_thenKeepTimesAndStatus() throws Exception{
+        Event event = new Event("TestEvent3", "TestOrganizer2",
+                Instant.parse("2030-03-01T18:30:00.5Z"), Instant.parse("1969-12-31T23:00:00Z"));
+        event.setStatus(EventStatus.POSTPONED);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        EventProtobuf.writeEventList(List.of(event, new Event("TestEvent4", "TestOrganizer2")), body);
+
+        Iterator<Event> events = EventProtobuf.readEventList(new ByteArrayInputStream(body.toByteArray()));
+        Event scheduled = events.next();
+        assertEquals(event.getStartTime(), scheduled.getStartTime());
+        assertEquals(event.getEndTime(), scheduled.getEndTime());
+        assertEquals(EventStatus.POSTPONED, scheduled.getStatus());
+        Event unscheduled = events.next();
+        assertNull(unscheduled.getStartTime());
+        assertEquals(EventStatus.SCHEDULED, unscheduled.getStatus());
+    }
+}
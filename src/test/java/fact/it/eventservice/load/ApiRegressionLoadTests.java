@@ -0,0 +1,136 @@
+package fact.it.eventservice.load;
+
+import fact.it.eventservice.controller.EventController;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.service.EventBatchService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Performance regression suite for the REST API: a mix of reads and writes over every endpoint, first with a
+ * fixed number of clients for the throughput the service reaches, then at a fixed rate for the p99 latency of
+ * every endpoint. Fails when the throughput or a p99 is worse than {@link LoadBaseline} allows, or when more
+ * than 1% of the requests of an endpoint fail. The limits are off since all clients share one address here.
+ * Run with -Pload-test; record a new baseline with -Dload.baseline.update=true.
+ */
+@Tag("load")
+public class ApiRegressionLoadTests {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 8);
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "25"));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 5));
+    // Long enough for some 70 requests of even the rarest steps at the default rate, their p99 is noise otherwise.
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.seconds", 60));
+    private static final double LATENCY_TOLERANCE = Double.parseDouble(System.getProperty("load.regression.latency-tolerance", "1.5"));
+    private static final double LATENCY_SLACK_MILLIS = Double.parseDouble(System.getProperty("load.regression.latency-slack-millis", "5"));
+    private static final double THROUGHPUT_TOLERANCE = Double.parseDouble(System.getProperty("load.regression.throughput-tolerance", "0.8"));
+    // Deletes go for the events created this many rounds of the mix earlier, which are surely there by then;
+    // the first rounds delete events created up front.
+    private static final long DELETE_LAG = 10;
+    private static final int BATCH_SIZE = 10;
+
+    private final LoadDriver driver = new LoadDriver();
+    // Keeps the names of created events apart from those of earlier runs against the same Postgres.
+    private final String run = Long.toString(System.currentTimeMillis(), 36);
+
+    @Test
+    public void givenMixedTraffic_whenComparedWithBaseline_thenNoEndpointRegressed() throws Exception{
+        List<LoadResult> capacity;
+        List<LoadResult> atRate;
+        try (ConfigurableApplicationContext context = LoadTestApplication.start("--events.limits.enabled=false")) {
+            createDeletedFirst(context);
+            LoadScenario scenario = scenario(LoadTestApplication.baseUri(context));
+            capacity = driver.run("capacity", scenario, CLIENTS, WARMUP, DURATION);
+            atRate = driver.runAtRate("mix", scenario, RATE, WARMUP, DURATION);
+        }
+
+        System.out.println("Mixed traffic with " + CLIENTS + " clients for " + DURATION.toSeconds() + "s:");
+        capacity.forEach(System.out::println);
+        System.out.println("Mixed traffic at " + RATE + " req/s for " + DURATION.toSeconds() + "s:");
+        atRate.forEach(System.out::println);
+
+        for (LoadResult result : atRate) {
+            assertTrue(result.getErrorRate() < 0.01, result.getName() + " failed too many requests");
+        }
+        if (Boolean.getBoolean("load.baseline.update")) {
+            LoadBaseline.store(CLIENTS, capacity.get(0), RATE, atRate);
+            System.out.println("Recorded the baseline in " + LoadBaseline.FILE);
+            return;
+        }
+        List<String> regressions = LoadBaseline.load().regressions(CLIENTS, capacity.get(0), RATE, atRate,
+                LATENCY_TOLERANCE, LATENCY_SLACK_MILLIS, THROUGHPUT_TOLERANCE);
+        assertTrue(regressions.isEmpty(), "Regressed against " + LoadBaseline.FILE + ": " + regressions);
+    }
+
+    // Mostly reads, as in production, with every write the API has. Updates keep the organizer and start time
+    // of the seeded events, so the listings and ranges stay the same size throughout.
+    private LoadScenario scenario(URI baseUri) {
+        return new LoadScenario()
+                .add("list", 3, n -> get(baseUri, "/events?limit=100"))
+                .add("find-by-name", 4, n -> get(baseUri, "/events/" + LoadTestApplication.eventName(n)))
+                .add("find-by-organizer", 3, n -> get(baseUri, "/events/organizer/" + LoadTestApplication.organizer(n)))
+                .add("stream-by-organizer", 1, n -> HttpRequest.newBuilder(
+                        baseUri.resolve("/events/organizer/" + LoadTestApplication.organizer(n)))
+                        .header("Accept", EventController.APPLICATION_NDJSON_VALUE).GET().build())
+                .add("range", 2, n -> get(baseUri, "/events?limit=50&from=" + LoadTestApplication.startTime(n)))
+                .add("search", 2, n -> get(baseUri, "/events/search?q=" + LoadTestApplication.eventName(n)))
+                .add("changes", 1, n -> get(baseUri, "/events/changes?since=0&limit=100"))
+                .add("create", 1, n -> send(baseUri, "POST", "/events", event(createdName(n), LoadTestApplication.organizer(n))))
+                .add("update", 2, n -> send(baseUri, "PUT", "/events", scheduledEvent(LoadTestApplication.eventName(n),
+                        LoadTestApplication.organizer(n), LoadTestApplication.startTime(n))))
+                .add("delete", 1, n -> HttpRequest.newBuilder(baseUri.resolve("/events/event/" + createdName(n - DELETE_LAG)))
+                        .DELETE().build())
+                .add("batch", 1, n -> send(baseUri, "POST", "/events/batch", batch(n)));
+    }
+
+    private void createDeletedFirst(ConfigurableApplicationContext context) {
+        List<Event> events = new ArrayList<>();
+        for (long n = -DELETE_LAG; n < 0; n++) {
+            events.add(new Event(createdName(n), LoadTestApplication.organizer(n)));
+        }
+        context.getBean(EventBatchService.class).ingest(events.iterator());
+    }
+
+    private String createdName(long n) {
+        return "LoadCreated-" + run + "-" + n;
+    }
+
+    private String batch(long n) {
+        StringJoiner events = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            events.add(event("LoadBatch-" + run + "-" + n + "-" + i, LoadTestApplication.organizer(i)));
+        }
+        return events.toString();
+    }
+
+    private static String event(String eventName, String organizer) {
+        return "{\"eventName\":\"" + eventName + "\",\"organizer\":\"" + organizer + "\"}";
+    }
+
+    private static String scheduledEvent(String eventName, String organizer, Instant startTime) {
+        return "{\"eventName\":\"" + eventName + "\",\"organizer\":\"" + organizer + "\",\"startTime\":\"" + startTime
+                + "\",\"endTime\":\"" + startTime.plus(Duration.ofHours(2)) + "\"}";
+    }
+
+    private static HttpRequest get(URI baseUri, String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).GET().build();
+    }
+
+    private static HttpRequest send(URI baseUri, String method, String path, String json) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package fact.it.eventservice.load;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Reference results of {@link ApiRegressionLoadTests}, kept in src/test/resources/load/api-baseline.properties:
+ * the throughput of the mix at capacity and the p99 latency of the mix and of every step at the fixed rate,
+ * next to the number of clients and the rate they were measured with.
+ * They only hold for the machine they were recorded on, record them again there after a change that is
+ * meant to make the service slower, or on new hardware, with -Dload.baseline.update=true.
+ */
+final class LoadBaseline {
+
+    static final Path FILE = Paths.get("src", "test", "resources", "load", "api-baseline.properties");
+    private static final String THROUGHPUT = ".throughput";
+    private static final String P99 = ".p99-millis";
+    private static final String CLIENTS = "capacity.clients";
+    private static final String RATE = "mix.rate";
+
+    private final Properties values;
+
+    private LoadBaseline(Properties values) {
+        this.values = values;
+    }
+
+    static LoadBaseline load() throws IOException {
+        Properties values = new Properties();
+        if (Files.exists(FILE)) {
+            try (Reader reader = Files.newBufferedReader(FILE)) {
+                values.load(reader);
+            }
+        }
+        return new LoadBaseline(values);
+    }
+
+    static void store(int clients, LoadResult capacity, double rate, List<LoadResult> atRate) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# Recorded by ApiRegressionLoadTests with -Dload.baseline.update=true, see the README.");
+        lines.add(CLIENTS + "=" + clients);
+        lines.add(RATE + "=" + format(rate));
+        lines.add(key("capacity", THROUGHPUT) + "=" + format(capacity.getThroughput()));
+        for (LoadResult result : atRate) {
+            lines.add(key(result.getName(), P99) + "=" + format(result.getLatencyMillis(99)));
+        }
+        Files.write(FILE, lines);
+    }
+
+    /**
+     * Describes every number that is worse than its baseline by more than the tolerances allow. A p99 may grow
+     * to latencyTolerance times its baseline plus slackMillis, which keeps steps that take about a millisecond
+     * from failing on noise; the throughput may drop to throughputTolerance times its baseline.
+     */
+    List<String> regressions(int clients, LoadResult capacity, double rate, List<LoadResult> atRate,
+                             double latencyTolerance, double slackMillis, double throughputTolerance) {
+        List<String> regressions = new ArrayList<>();
+        // Numbers of another load say nothing about this one.
+        if (!Integer.toString(clients).equals(values.getProperty(CLIENTS, Integer.toString(clients)))
+                || !format(rate).equals(values.getProperty(RATE, format(rate)))) {
+            regressions.add("the baseline was recorded with " + values.getProperty(CLIENTS) + " clients and "
+                    + values.getProperty(RATE) + " req/s, not " + clients + " and " + format(rate));
+            return regressions;
+        }
+        Double throughput = baseline(key("capacity", THROUGHPUT), regressions);
+        if (throughput != null && capacity.getThroughput() < throughputTolerance * throughput) {
+            regressions.add(String.format(Locale.ROOT, "throughput %.1f req/s, baseline %.1f req/s",
+                    capacity.getThroughput(), throughput));
+        }
+        for (LoadResult result : atRate) {
+            Double p99 = baseline(key(result.getName(), P99), regressions);
+            if (p99 != null && result.getLatencyMillis(99) > latencyTolerance * p99 + slackMillis) {
+                regressions.add(String.format(Locale.ROOT, "%s p99 %.2f ms, baseline %.2f ms",
+                        result.getName(), result.getLatencyMillis(99), p99));
+            }
+        }
+        return regressions;
+    }
+
+    private Double baseline(String key, List<String> regressions) {
+        String value = values.getProperty(key);
+        if (value == null) {
+            regressions.add("no baseline for " + key + ", record one with -Dload.baseline.update=true");
+            return null;
+        }
+        return Double.valueOf(value);
+    }
+
+    private static String key(String name, String metric) {
+        return name + metric;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
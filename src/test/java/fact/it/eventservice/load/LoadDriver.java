@@ -0,0 +1,229 @@
+package fact.it.eventservice.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * HTTP load generator with two models:
+ * <ul>
+ *     <li>{@link #run}, closed: a fixed number of clients each send their next request as soon as the
+ *     previous one completed, for a fixed duration.</li>
+ *     <li>{@link #runAtRate}, open: requests arrive at a fixed rate whether or not earlier ones completed,
+ *     the way independent clients overload a service. Latency counts from when a request was due, so a
+ *     stalled generator does not hide the queueing.</li>
+ * </ul>
+ * Latencies of answered requests are recorded in an HdrHistogram; 429 and 503 responses count as
+ * rejected, other failures as errors. Both models also run a {@link LoadScenario}, with a result per step
+ * and one for the whole mix.
+ */
+public class LoadDriver {
+
+    private final HttpClient httpClient;
+
+    public LoadDriver() {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(8))
+                .build();
+    }
+
+    public LoadResult run(String name, int clients, Duration warmup, Duration duration, IntFunction<HttpRequest> requests)
+            throws InterruptedException {
+        runFor(clients, warmup, requests, new Recorder());
+
+        Recorder recorder = new Recorder();
+        long start = System.nanoTime();
+        runFor(clients, duration, requests, recorder);
+        return recorder.result(name, (System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    public LoadResult runAtRate(String name, double requestsPerSecond, Duration warmup, Duration duration,
+                                IntFunction<HttpRequest> requests) throws InterruptedException {
+        sendAtRate(requestsPerSecond, warmup, requests, new Recorder());
+
+        Recorder recorder = new Recorder();
+        sendAtRate(requestsPerSecond, duration, requests, recorder);
+        return recorder.result(name, duration.toNanos() / 1_000_000_000.0);
+    }
+
+    /**
+     * The scenario in the closed model; the result of the whole mix comes first, under the given name.
+     */
+    public List<LoadResult> run(String name, LoadScenario scenario, int clients, Duration warmup, Duration duration)
+            throws InterruptedException {
+        runFor(clients, warmup, scenario::request, new ScenarioRecorder(scenario));
+
+        ScenarioRecorder recorder = new ScenarioRecorder(scenario);
+        long start = System.nanoTime();
+        runFor(clients, duration, scenario::request, recorder);
+        return recorder.results(name, (System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    /**
+     * The scenario in the open model; the result of the whole mix comes first, under the given name.
+     */
+    public List<LoadResult> runAtRate(String name, LoadScenario scenario, double requestsPerSecond, Duration warmup,
+                                      Duration duration) throws InterruptedException {
+        sendAtRate(requestsPerSecond, warmup, scenario::request, new ScenarioRecorder(scenario));
+
+        ScenarioRecorder recorder = new ScenarioRecorder(scenario);
+        sendAtRate(requestsPerSecond, duration, scenario::request, recorder);
+        return recorder.results(name, duration.toNanos() / 1_000_000_000.0);
+    }
+
+    private void runFor(int clients, Duration duration, IntFunction<HttpRequest> requests, Recording recorder)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        List<Runnable> loops = new ArrayList<>(clients);
+        for (int client = 0; client < clients; client++) {
+            int clientId = client;
+            loops.add(() -> {
+                for (int sequence = clientId; System.nanoTime() < deadline; sequence += clients) {
+                    HttpRequest request = requests.apply(sequence);
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        recorder.record(sequence, response.statusCode(), sent);
+                    } catch (Exception e) {
+                        recorder.failed(sequence);
+                    }
+                }
+            });
+        }
+        loops.forEach(clientThreads::execute);
+        clientThreads.shutdown();
+        if (!clientThreads.awaitTermination(duration.toSeconds() + 300, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Load clients did not finish within " + duration);
+        }
+    }
+
+    private void sendAtRate(double requestsPerSecond, Duration duration, IntFunction<HttpRequest> requests,
+                            Recording recorder) throws InterruptedException {
+        double interval = 1_000_000_000.0 / requestsPerSecond;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        AtomicLong outstanding = new AtomicLong();
+        for (int sequence = 0; ; sequence++) {
+            long due = start + (long) (sequence * interval);
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            outstanding.incrementAndGet();
+            int sent = sequence;
+            httpClient.sendAsync(requests.apply(sequence), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        if (failure == null) {
+                            recorder.record(sent, response.statusCode(), due);
+                        } else {
+                            recorder.failed(sent);
+                        }
+                        outstanding.decrementAndGet();
+                    });
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(300);
+        while (outstanding.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException(outstanding.get() + " requests still outstanding");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private interface Recording {
+        void record(int sequence, int status, long sent);
+
+        void failed(int sequence);
+    }
+
+    private static final class Recorder implements Recording {
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        @Override
+        public void record(int sequence, int status, long sent) {
+            record(status, sent);
+        }
+
+        @Override
+        public void failed(int sequence) {
+            failed();
+        }
+
+        void record(int status, long sent) {
+            requests.incrementAndGet();
+            if (status == 429 || status == 503) {
+                rejected.incrementAndGet();
+                return;
+            }
+            if (status >= 400) {
+                errors.incrementAndGet();
+            }
+            latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sent));
+        }
+
+        void failed() {
+            requests.incrementAndGet();
+            errors.incrementAndGet();
+        }
+
+        LoadResult result(String name, double seconds) {
+            return new LoadResult(name, requests.get(), errors.get(), rejected.get(), seconds, latencies);
+        }
+    }
+
+    // Records every request twice: for the whole mix and for the step it belongs to.
+    private static final class ScenarioRecorder implements Recording {
+        private final LoadScenario scenario;
+        private final Recorder total = new Recorder();
+        private final Map<String, Recorder> steps = new LinkedHashMap<>();
+
+        ScenarioRecorder(LoadScenario scenario) {
+            this.scenario = scenario;
+            for (String step : scenario.getStepNames()) {
+                steps.put(step, new Recorder());
+            }
+        }
+
+        @Override
+        public void record(int sequence, int status, long sent) {
+            total.record(status, sent);
+            steps.get(scenario.stepName(sequence)).record(status, sent);
+        }
+
+        @Override
+        public void failed(int sequence) {
+            total.failed();
+            steps.get(scenario.stepName(sequence)).failed();
+        }
+
+        List<LoadResult> results(String name, double seconds) {
+            List<LoadResult> results = new ArrayList<>();
+            results.add(total.result(name, seconds));
+            steps.forEach((step, recorder) -> results.add(recorder.result(step, seconds)));
+            return results;
+        }
+    }
+}
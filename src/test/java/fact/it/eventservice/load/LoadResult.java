@@ -0,0 +1,68 @@
+package fact.it.eventservice.load;
+
+import org.HdrHistogram.Histogram;
+
+public class LoadResult {
+    private final String name;
+    private final long requests;
+    private final long errors;
+    private final long rejected;
+    private final double seconds;
+    private final Histogram latencies;
+
+    public LoadResult(String name, long requests, long errors, long rejected, double seconds, Histogram latencies) {
+        this.name = name;
+        this.requests = requests;
+        this.errors = errors;
+        this.rejected = rejected;
+        this.seconds = seconds;
+        this.latencies = latencies;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public double getThroughput() {
+        return requests / seconds;
+    }
+
+    /**
+     * Requests per second that were answered rather than rejected by the limits.
+     */
+    public double getServedThroughput() {
+        return (requests - rejected) / seconds;
+    }
+
+    public double getErrorRate() {
+        return requests == 0 ? 0 : (double) errors / requests;
+    }
+
+    public double getRejectionRate() {
+        return requests == 0 ? 0 : (double) rejected / requests;
+    }
+
+    // Latencies are those of served requests, rejections are left out.
+    public double getLatencyMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-24s %8d req %6d err %7d rej %9.1f req/s  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms",
+                name, requests, errors, rejected, getThroughput(), getLatencyMillis(50), getLatencyMillis(99),
+                latencies.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,60 @@
+package fact.it.eventservice.load;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * A weighted mix of named requests for {@link LoadDriver}, e.g. eight reads to every write. Each round of the
+ * mix sends every step as often as its weight, in the order the steps were added, so a run sends the same
+ * requests every time. A step is passed how often it was sent before, across runs, which lets writes create
+ * events under names of their own and delete the ones created a round earlier.
+ */
+public class LoadScenario {
+
+    private final List<Step> steps = new ArrayList<>();
+    private final List<Step> slots = new ArrayList<>();
+
+    public LoadScenario add(String name, int weight, LongFunction<HttpRequest> requests) {
+        Step step = new Step(name, requests);
+        steps.add(step);
+        for (int i = 0; i < weight; i++) {
+            slots.add(step);
+        }
+        return this;
+    }
+
+    public List<String> getStepNames() {
+        List<String> names = new ArrayList<>(steps.size());
+        for (Step step : steps) {
+            names.add(step.name);
+        }
+        return names;
+    }
+
+    HttpRequest request(int sequence) {
+        Step step = step(sequence);
+        return step.requests.apply(step.sent.getAndIncrement());
+    }
+
+    String stepName(int sequence) {
+        return step(sequence).name;
+    }
+
+    private Step step(int sequence) {
+        return slots.get(Math.floorMod(sequence, slots.size()));
+    }
+
+    private static final class Step {
+        private final String name;
+        private final LongFunction<HttpRequest> requests;
+        private final AtomicLong sent = new AtomicLong();
+
+        Step(String name, LongFunction<HttpRequest> requests) {
+            this.name = name;
+            this.requests = requests;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package fact.it.eventservice.load;
+
+import fact.it.eventservice.EventServiceApplication;
+import fact.it.eventservice.model.Event;
+import fact.it.eventservice.service.EventBatchService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the service on a random port for load tests. The h2 profile is used unless -Dload.profiles says
+ * otherwise, pass an empty value to run against the Postgres from application.properties.
+ */
+final class LoadTestApplication {
+
+    static final int EVENTS = 1000;
+    static final int ORGANIZERS = 50;
+    // An hour apart from here on, far enough ahead that the archive never moves them.
+    static final Instant FIRST_START = Instant.parse("2030-01-01T00:00:00Z");
+
+    private LoadTestApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... args) {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        arguments.add("--server.port=0");
+        String profiles = System.getProperty("load.profiles", "h2");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(EventServiceApplication.class)
+                .profiles(profiles.isEmpty() ? new String[0] : profiles.split(","))
+                .logStartupInfo(false)
+                .run(arguments.toArray(new String[0]));
+        seed(context);
+        return context;
+    }
+
+    static URI baseUri(ConfigurableApplicationContext context) {
+        return URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    static String eventName(long sequence) {
+        return "LoadEvent" + Math.floorMod(sequence, EVENTS);
+    }
+
+    static String organizer(long sequence) {
+        return "LoadOrganizer" + Math.floorMod(sequence, ORGANIZERS);
+    }
+
+    static Instant startTime(long sequence) {
+        return FIRST_START.plus(Duration.ofHours(Math.floorMod(sequence, EVENTS)));
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        List<Event> events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(new Event(eventName(i), organizer(i), startTime(i), startTime(i).plus(Duration.ofHours(2))));
+        }
+        context.getBean(EventBatchService.class).ingest(events.iterator());
+    }
+}
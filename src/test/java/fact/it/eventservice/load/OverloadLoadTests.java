@@ -0,0 +1,84 @@
+package fact.it.eventservice.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Offers five times the rate the service sustains and checks that the adaptive concurrency limit keeps the
+ * latency of the requests it admits close to the unloaded latency, by shedding the rest with 503. The same
+ * overload without the limits is run for comparison only. Rate limits are off: all clients share one
+ * address here. Run with -Pload-test.
+ * <p>
+ * The database is made the bottleneck with {@link SimulatedDatabaseLatency}, like Postgres is in production;
+ * on a small machine the service would otherwise be bound by the CPU it shares with the load generator.
+ */
+@Tag("load")
+public class OverloadLoadTests {
+
+    private static final int CONNECTIONS = Integer.getInteger("load.database.connections", 2);
+    private static final Duration QUERY_LATENCY = Duration.ofMillis(Long.getLong("load.database.latency-millis", 50));
+    private static final int CLIENTS = Integer.getInteger("load.overload.clients", CONNECTIONS);
+    private static final double OVERLOAD = Double.parseDouble(System.getProperty("load.overload.factor", "5"));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.seconds", 20));
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final LoadDriver driver = new LoadDriver();
+
+    @Test
+    public void givenFiveTimesCapacity_whenLimited_thenAdmittedRequestsKeepTheirTailLatency() throws Exception{
+        LoadResult baseline;
+        LoadResult limited;
+        try (ConfigurableApplicationContext context = start(true)) {
+            IntFunction<HttpRequest> requests = requests(LoadTestApplication.baseUri(context));
+            baseline = driver.run("capacity", CLIENTS, WARMUP, DURATION, requests);
+            limited = driver.runAtRate("limited " + OVERLOAD + "x", OVERLOAD * baseline.getThroughput(), WARMUP, DURATION, requests);
+        }
+        LoadResult unlimited;
+        try (ConfigurableApplicationContext context = start(false)) {
+            unlimited = driver.runAtRate("unlimited " + OVERLOAD + "x", OVERLOAD * baseline.getThroughput(), WARMUP, DURATION,
+                    requests(LoadTestApplication.baseUri(context)));
+        }
+
+        System.out.println("Overload at " + OVERLOAD + " times the capacity of " + CLIENTS + " clients for " + DURATION.toSeconds() + "s:");
+        for (LoadResult result : List.of(baseline, limited, unlimited)) {
+            System.out.println(result);
+        }
+
+        double allowedP99 = Math.max(3 * baseline.getLatencyMillis(99), baseline.getLatencyMillis(99) + 50);
+        assertTrue(limited.getLatencyMillis(99) <= allowedP99,
+                "p99 under overload " + limited.getLatencyMillis(99) + " ms, allowed " + allowedP99 + " ms");
+        assertTrue(limited.getErrorRate() < 0.01, "overload failed requests instead of shedding them");
+        assertTrue(limited.getRejected() > 0, "nothing was shed, the overload did not reach the service");
+        assertTrue(limited.getServedThroughput() >= 0.5 * baseline.getThroughput(),
+                "served " + limited.getServedThroughput() + " req/s of a capacity of " + baseline.getThroughput());
+    }
+
+    private static ConfigurableApplicationContext start(boolean limits) {
+        return LoadTestApplication.start(
+                "--events.cache.by-organizer.maximum-size=0",
+                "--events.cache.max-in-flight-loads=0",
+                "--events.limits.enabled=" + limits,
+                "--events.limits.reads.rate=0",
+                "--events.limits.reads.min-concurrency=" + CONNECTIONS,
+                "--load.database.connections=" + CONNECTIONS,
+                "--load.database.latency=" + QUERY_LATENCY.toMillis() + "ms");
+    }
+
+    // Organizer listings without the near-cache and without collapsing concurrent misses: every request is a query.
+    private static IntFunction<HttpRequest> requests(URI baseUri) {
+        return sequence -> HttpRequest.newBuilder(baseUri.resolve("/events/organizer/" + LoadTestApplication.organizer(sequence)))
+                .timeout(TIMEOUT)
+                .GET()
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package fact.it.eventservice.load;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Makes the in-memory database behave like a remote one that is the bottleneck: at most
+ * load.database.connections connections at a time, each checkout taking load.database.latency. Requests
+ * then wait for a connection the way they wait on Hikari and Postgres in production, instead of competing
+ * with the load generator for the CPU of the machine running the test.
+ */
+@Configuration
+@ConditionalOnProperty("load.database.latency")
+class SimulatedDatabaseLatency {
+
+    @Bean
+    static BeanPostProcessor simulatedDatabaseLatencyPostProcessor(Environment environment) {
+        int connections = environment.getRequiredProperty("load.database.connections", Integer.class);
+        Duration latency = environment.getRequiredProperty("load.database.latency", Duration.class);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource ? new SlowDataSource((DataSource) bean, connections, latency) : bean;
+            }
+        };
+    }
+
+    private static final class SlowDataSource extends DelegatingDataSource {
+        private final Semaphore connections;
+        private final Duration latency;
+
+        private SlowDataSource(DataSource dataSource, int connections, Duration latency) {
+            super(dataSource);
+            this.connections = new Semaphore(connections, true);
+            this.latency = latency;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            connections.acquireUninterruptibly();
+            try {
+                Thread.sleep(latency.toMillis());
+                return releasingOnClose(super.getConnection());
+            } catch (InterruptedException e) {
+                connections.release();
+                Thread.currentThread().interrupt();
+                throw new SQLException(e);
+            } catch (SQLException | RuntimeException e) {
+                connections.release();
+                throw e;
+            }
+        }
+
+        private Connection releasingOnClose(Connection connection) {
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, arguments) -> {
+                        if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                            connections.release();
+                        }
+                        try {
+                            return method.invoke(connection, arguments);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
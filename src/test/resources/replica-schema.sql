@@ -0,0 +1,10 @@
+-- Schema of the H2 database that stands in for a read replica, Hibernate only creates the primary's.
+create table if not exists event (
+    id         integer not null primary key,
+    event_name varchar(255),
+    organizer  varchar(255),
+    version    integer default 0 not null,
+    start_time timestamp,
+    end_time   timestamp,
+    status     varchar(16) default 'SCHEDULED' not null
+);